@@ -1,6 +1,9 @@
 package am.aua.chess;
 
+import am.aua.chess.bench.CoreBenchmark;
+import am.aua.chess.bench.SearchBenchmark;
 import am.aua.chess.cli.ChessConsole;
+import am.aua.chess.uci.UciEngine;
 import am.aua.chess.ui.ChessUI;
 
 /**
@@ -12,6 +15,11 @@ public class Main {
     /**
      * The main method that starts the application.
      * If the user runs the program with "-console", the CLI version will launch.
+     * With "-bench [filter]", the core micro-benchmarks run instead.
+     * With "-bench-search [threads] [depth]", the parallel search scaling is measured.
+     * With "-ai", the GUI launches with the computer playing Black.
+     * With "-panel" (after "-ai" or alone), the GUI draws the board as a single component instead of buttons.
+     * With "-uci", the engine runs headless and speaks the UCI protocol over standard input and output.
      * Otherwise, the GUI version will launch by default.
      *
      * @param args command-line arguments
@@ -23,9 +31,48 @@ public class Main {
             chess.run();
         }
 
+        // Run the core micro-benchmarks if "-bench" (optionally with a name filter) is passed
+        if (args.length >= 1 && args.length <= 2 && args[0].equals("-bench")) {
+            try {
+                new CoreBenchmark().run(args.length == 2 ? args[1] : "");
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Measure parallel search scaling if "-bench-search" (optionally with thread count and depth) is passed
+        if (args.length >= 1 && args.length <= 3 && args[0].equals("-bench-search")) {
+            try {
+                int threads = args.length >= 2 ? Integer.parseInt(args[1])
+                        : Runtime.getRuntime().availableProcessors();
+                int depth = args.length == 3 ? Integer.parseInt(args[2]) : 7;
+                new SearchBenchmark().run(threads, depth);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Run the engine for UCI chess GUIs and tournament managers if "-uci" flag is passed
+        if (args.length == 1 && args[0].equals("-uci")) {
+            new UciEngine(System.in, System.out).run();
+        }
+
         // Launch GUI interface if no arguments are passed
         if (args.length == 0) {
             new ChessUI();
         }
+
+        // Launch GUI interface against the computer if "-ai" flag is passed
+        if (args.length == 1 && args[0].equals("-ai")) {
+            new ChessUI(true);
+        }
+
+        // Launch GUI interface with a single-component board if "-panel" (optionally after "-ai") is passed
+        if (args.length == 1 && args[0].equals("-panel")) {
+            new ChessUI(false, true);
+        }
+        if (args.length == 2 && args[0].equals("-ai") && args[1].equals("-panel")) {
+            new ChessUI(true, true);
+        }
     }
 }
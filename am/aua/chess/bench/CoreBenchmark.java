@@ -0,0 +1,226 @@
+package am.aua.chess.bench;
+
+import am.aua.chess.core.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * Micro-benchmarks for the hot paths of the core package.
+ * Every benchmark runs over a fixed corpus of opening, middlegame and endgame
+ * arrangements, and reports its throughput and the bytes it allocates per operation,
+ * so results before and after a change can be compared directly.
+ */
+public class CoreBenchmark {
+
+    /** The corpus: arrangement strings and the side to move. */
+    static final String[] ARRANGEMENTS = {
+            // Opening: the standard starting arrangement
+            "rnbqkbnr" + "pppppppp" + "--------" + "--------" + "--------" + "--------" + "PPPPPPPP" + "RNBQKBNR",
+            // Middlegame: many pieces with open lines
+            "r---k--r" + "p-ppqpb-" + "bn--pnp-" + "---PN---" + "-p--P---" + "--N--Q-p" + "PPPBBPPP" + "R---K--R",
+            // Endgame: kings, rooks and pawns
+            "--------" + "--p-----" + "---p----" + "KP-----r" + "-R---p-k" + "--------" + "----P-P-" + "--------"
+    };
+    static final Chess.PieceColor[] TURNS = {Chess.PieceColor.WHITE, Chess.PieceColor.WHITE,
+            Chess.PieceColor.WHITE};
+
+    /** Length of one warm-up or measurement iteration, in nanoseconds. */
+    private static final long ITERATION_NANOS = 1_000_000_000L;
+
+    /** Number of warm-up and measurement iterations per benchmark. */
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+
+    /** Results are summed here so the JIT cannot discard the benchmarked work. */
+    private static volatile long sink;
+
+    /**
+     * A benchmarked operation. It returns a value derived from its work, which
+     * is consumed by the harness.
+     */
+    private interface Operation {
+        long run() throws Exception;
+    }
+
+    /** The positions of the corpus. */
+    private final Chess[] games;
+
+    /** The occupied squares of each position, and one legal move per position. */
+    private final Position[][] pieces;
+    private final Move[] legalMoves;
+
+    /**
+     * Builds the corpus positions.
+     * @throws IllegalArrangementException if a corpus arrangement is invalid
+     */
+    public CoreBenchmark() throws IllegalArrangementException {
+        this.games = new Chess[ARRANGEMENTS.length];
+        this.pieces = new Position[ARRANGEMENTS.length][];
+        this.legalMoves = new Move[ARRANGEMENTS.length];
+
+        for (int i = 0; i < ARRANGEMENTS.length; i++) {
+            this.games[i] = new Chess(ARRANGEMENTS[i], TURNS[i]);
+
+            ArrayList<Position> occupied = new ArrayList<>();
+            for (int rank = 0; rank < Chess.BOARD_RANKS; rank++)
+                for (int file = 0; file < Chess.BOARD_FILES; file++) {
+                    Position p = Position.generateFromRankAndFile(rank, file);
+                    if (!this.games[i].isEmpty(p))
+                        occupied.add(p);
+                }
+            this.pieces[i] = occupied.toArray(new Position[]{});
+
+            // Pick the first move that performMove accepts, then take it back
+            for (Position p : this.pieces[i])
+                for (Position d : this.games[i].reachableFrom(p))
+                    if (this.legalMoves[i] == null && this.games[i].performMove(new Move(p, d))) {
+                        this.games[i].unmakeMove();
+                        this.legalMoves[i] = new Move(p, d);
+                    }
+        }
+    }
+
+    /**
+     * Runs every benchmark whose name contains the filter.
+     * @param filter a substring of the benchmark names to run, or "" for all
+     * @throws Exception if a benchmark fails
+     */
+    public void run(String filter) throws Exception {
+        System.out.printf("%-36s %16s %14s%n", "Benchmark", "ops/s", "bytes/op");
+
+        String[] pieceNames = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+        for (int type = Chess.PAWN; type <= Chess.KING; type++) {
+            int pieceType = type;
+            measure(filter, pieceNames[type] + ".allDestinations", () -> allDestinations(pieceType));
+        }
+
+        measure(filter, "Chess.reachableFrom", () -> {
+            long result = 0;
+            for (int i = 0; i < this.games.length; i++)
+                for (Position p : this.pieces[i])
+                    result += this.games[i].reachableFrom(p).length;
+            return result;
+        });
+        measure(filter, "Chess.performMove", () -> {
+            long result = 0;
+            for (int i = 0; i < this.games.length; i++)
+                if (this.games[i].performMove(this.legalMoves[i])) {
+                    this.games[i].unmakeMove();
+                    result++;
+                }
+            return result;
+        });
+        measure(filter, "Chess.isKingUnderAttack", () -> {
+            long result = 0;
+            for (Chess game : this.games)
+                if (game.isKingUnderAttack(Chess.PieceColor.WHITE) || game.isKingUnderAttack(Chess.PieceColor.BLACK))
+                    result++;
+            return result;
+        });
+        measure(filter, "Chess.getAllDestinationsByColor", () -> {
+            long result = 0;
+            for (Chess game : this.games)
+                result += game.getAllDestinationsByColor(Chess.PieceColor.WHITE).length
+                        + game.getAllDestinationsByColor(Chess.PieceColor.BLACK).length;
+            return result;
+        });
+        MoveList moveList = new MoveList();
+        measure(filter, "Chess.generateLegalMoves", () -> {
+            long result = 0;
+            for (Chess game : this.games) {
+                game.generateLegalMoves(moveList);
+                result += moveList.size();
+            }
+            return result;
+        });
+        measure(filter, "Chess.clone", () -> {
+            long result = 0;
+            for (Chess game : this.games)
+                result += game.clone().getTurn().ordinal();
+            return result;
+        });
+        measure(filter, "Chess.getBoard", () -> {
+            long result = 0;
+            for (Chess game : this.games)
+                result += game.getBoard().length;
+            return result;
+        });
+        measure(filter, "Chess(String, PieceColor)", () -> {
+            long result = 0;
+            for (int i = 0; i < ARRANGEMENTS.length; i++)
+                result += new Chess(ARRANGEMENTS[i], TURNS[i]).getTurn().ordinal();
+            return result;
+        });
+    }
+
+    /**
+     * Calls allDestinations for every piece of one type in the corpus.
+     * @param type the piece type (Chess.PAWN … Chess.KING)
+     * @return the number of destinations found
+     */
+    private long allDestinations(int type) {
+        long result = 0;
+        for (int i = 0; i < this.games.length; i++)
+            for (Position p : this.pieces[i])
+                if (this.games[i].getPieceType(p.getSquare()) == type)
+                    result += this.games[i].getPieceAt(p).allDestinations(this.games[i], p).length;
+        return result;
+    }
+
+    /**
+     * Warms up and measures one benchmark, then prints its throughput and allocation rate.
+     * One operation is one pass over the whole corpus.
+     * @param filter the name filter
+     * @param name the benchmark name
+     * @param operation the benchmarked operation
+     * @throws Exception if the operation fails
+     */
+    private static void measure(String filter, String name, Operation operation) throws Exception {
+        if (!name.contains(filter))
+            return;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            iterate(operation);
+
+        long operations = 0, nanos = 0, bytes = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            operations += iterate(operation);
+            nanos += System.nanoTime() - start;
+            bytes += allocatedBytes() - bytesBefore;
+        }
+
+        System.out.printf("%-36s %16.1f %14.1f%n", name,
+                operations * 1e9 / nanos, (double) bytes / operations);
+    }
+
+    /**
+     * Runs an operation repeatedly for one iteration.
+     * @param operation the operation
+     * @return the number of times it ran
+     * @throws Exception if the operation fails
+     */
+    private static long iterate(Operation operation) throws Exception {
+        long count = 0, result = 0;
+        long end = System.nanoTime() + ITERATION_NANOS;
+        while (System.nanoTime() < end) {
+            result += operation.run();
+            count++;
+        }
+        sink += result;
+        return count;
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread.
+     * @return the allocated bytes, or 0 if the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+}
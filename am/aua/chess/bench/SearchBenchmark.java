@@ -0,0 +1,112 @@
+package am.aua.chess.bench;
+
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.IllegalArrangementException;
+import am.aua.chess.engine.ParallelSearch;
+import am.aua.chess.engine.Search;
+import am.aua.chess.engine.SearchLimits;
+import am.aua.chess.engine.TranspositionTable;
+
+/**
+ * Measures the search. First it reports, for every corpus position, the nodes
+ * needed to reach a fixed depth and how often the first move tried caused the
+ * beta cutoff, which shows how good the move ordering is.
+ * Then it measures how the parallel search scales: for 1, 2, 4, … threads it
+ * searches every corpus position to a fixed depth with a fresh transposition
+ * table, and reports the time to depth, the speedup over one thread, and the
+ * nodes per second in total and per thread.
+ */
+public class SearchBenchmark {
+
+    /** Size of the transposition table of every run, in megabytes. */
+    private static final int TABLE_MEGABYTES = 256;
+
+    /** The positions of the corpus. */
+    private final Chess[] games;
+
+    /** The transposition table, cleared before every search. */
+    private final TranspositionTable table = new TranspositionTable(TABLE_MEGABYTES);
+
+    /**
+     * Builds the corpus positions, the same as the core benchmarks use.
+     * @throws IllegalArrangementException if a corpus arrangement is invalid
+     */
+    public SearchBenchmark() throws IllegalArrangementException {
+        this.games = new Chess[CoreBenchmark.ARRANGEMENTS.length];
+        for (int i = 0; i < this.games.length; i++)
+            this.games[i] = new Chess(CoreBenchmark.ARRANGEMENTS[i], CoreBenchmark.TURNS[i]);
+    }
+
+    /**
+     * Runs the move ordering and scaling measurements.
+     * @param maxThreads the largest thread count to measure
+     * @param depth the depth every position is searched to
+     */
+    public void run(int maxThreads, int depth) {
+        runOrdering(depth);
+        System.out.println();
+        runScaling(maxThreads, depth);
+    }
+
+    /**
+     * Reports the nodes and beta cutoffs of a single-threaded search of every corpus position.
+     * @param depth the depth every position is searched to
+     */
+    private void runOrdering(int depth) {
+        System.out.printf("%8s %16s %12s %18s%n", "Position", "nodes", "cutoffs", "first-move cutoffs");
+
+        Search search = new Search(this.table);
+        for (int i = 0; i < this.games.length; i++) {
+            this.table.clear();
+            long nodes = search.search(this.games[i], SearchLimits.depth(depth)).getNodes();
+            System.out.printf("%8d %16d %12d %17.1f%%%n", i, nodes, search.getCutoffs(),
+                    100.0 * search.getFirstMoveCutoffs() / Math.max(1, search.getCutoffs()));
+        }
+    }
+
+    /**
+     * Reports the time to depth of the parallel search for growing thread counts.
+     * @param maxThreads the largest thread count to measure
+     * @param depth the depth every position is searched to
+     */
+    private void runScaling(int maxThreads, int depth) {
+        System.out.printf("%8s %12s %10s %16s %16s %16s%n",
+                "Threads", "ms", "speedup", "nodes", "nodes/s", "nodes/s/thread");
+
+        // One unmeasured run to warm up the JIT
+        measure(1, depth);
+
+        long baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            long[] result = measure(threads, depth);
+            long nanos = Math.max(1, result[0]);
+            if (threads == 1)
+                baseline = nanos;
+
+            long nodesPerSecond = result[1] * 1_000_000_000L / nanos;
+            System.out.printf("%8d %12d %10.2f %16d %16d %16d%n", threads, nanos / 1_000_000,
+                    (double) baseline / nanos, result[1], nodesPerSecond, nodesPerSecond / threads);
+            if (threads >= maxThreads)
+                break;
+        }
+    }
+
+    /**
+     * Searches every corpus position to a depth with a given number of threads.
+     * @param threads the number of threads
+     * @param depth the depth
+     * @return the total time in nanoseconds and the total number of nodes
+     */
+    private long[] measure(int threads, int depth) {
+        ParallelSearch search = new ParallelSearch(this.table, threads);
+        long nanos = 0, nodes = 0;
+        for (Chess game : this.games) {
+            this.table.clear();
+            long start = System.nanoTime();
+            nodes += search.search(game, SearchLimits.depth(depth)).getNodes();
+            nanos += System.nanoTime() - start;
+        }
+        search.shutdown();
+        return new long[]{nanos, nodes};
+    }
+}
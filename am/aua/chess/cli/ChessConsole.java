@@ -2,10 +2,17 @@ package am.aua.chess.cli;
 
 import am.aua.chess.core.Chess;
 import am.aua.chess.core.Move;
+import am.aua.chess.core.Piece;
 import am.aua.chess.core.Position;
+import am.aua.chess.engine.Perft;
+import am.aua.chess.engine.Search;
+import am.aua.chess.engine.SearchLimits;
+import am.aua.chess.engine.SearchResult;
+import am.aua.chess.engine.TranspositionTable;
 import am.aua.chess.puzzles.Puzzle;
 import am.aua.chess.puzzles.PuzzleDatabase;
 
+import java.util.Map;
 import java.util.Scanner;
 
 /**
@@ -13,9 +20,27 @@ import java.util.Scanner;
  * Users can play a new game, load puzzles, or add puzzles from a file.
  */
 public class ChessConsole {
+    /** Time the computer may think about each move, in milliseconds. */
+    private static final long COMPUTER_MOVE_MILLIS = 1000;
+
+    /** Size of the computer's transposition table, in megabytes. */
+    private static final int COMPUTER_TABLE_MEGABYTES = 64;
+
     private Chess game;
     private PuzzleDatabase database;
 
+    /** The pieces of the current game, kept up to date with the changes of each move. */
+    private Piece[][] board;
+
+    /** The computer opponent; created on first use. */
+    private Search computer;
+
+    /** The perft counter of the debug commands; created on first use, since it owns a thread pool. */
+    private Perft perft;
+
+    /** The color the computer plays in the current game, or null if two humans play. */
+    private Chess.PieceColor computerColor;
+
     /**
      * Constructs a new ChessConsole and initializes the puzzle database.
      */
@@ -38,8 +63,16 @@ public class ChessConsole {
             try {
                 if (inputLine.equals("p")) {
                     game = new Chess();
+                    computerColor = null;
                     play(); // Play a new standard game
                 }
+                else if (inputLine.equals("c")) {
+                    game = new Chess();
+                    computerColor = Chess.PieceColor.BLACK;
+                    if (computer == null)
+                        computer = new Search(new TranspositionTable(COMPUTER_TABLE_MEGABYTES));
+                    play(); // Play a new game against the computer
+                }
                 else if (inputLine.equals("l")) {
                     // List all puzzles in the database
                     int databaseSize = database.getSize();
@@ -54,6 +87,7 @@ public class ChessConsole {
                     int puzzleNumber = Integer.parseInt(inputLine.substring(2));
                     Puzzle puzzle = database.getPuzzle(puzzleNumber);
                     game = new Chess(puzzle.getArrangement(), puzzle.getTurn());
+                    computerColor = null;
                     play();
                 }
                 else
@@ -76,9 +110,20 @@ public class ChessConsole {
         Scanner sc = new Scanner(System.in);
         String inputLine;
 
+        // Follow the moves instead of reading the whole board for every print
+        board = game.getBoard();
+        game.addBoardChangeListener(event -> event.applyTo(board));
+
         print(); // Print initial board
 
         while (!game.isGameOver()) {
+            if (game.getTurn() == computerColor) {
+                if (!playComputerMove())
+                    return;
+                print();
+                continue;
+            }
+
             if (game.getTurn() == Chess.PieceColor.WHITE)
                 System.out.println("White's move: ");
             else
@@ -96,7 +141,7 @@ public class ChessConsole {
                 }
 
                 if (input[0].equals("debug")) {
-                    debug();
+                    debug(input);
                     print();
                     continue;
                 }
@@ -135,6 +180,38 @@ public class ChessConsole {
                 }
             }
         }
+
+        printResult();
+    }
+
+    /**
+     * Announces how a finished game ended: checkmate or stalemate.
+     */
+    private void printResult() {
+        if (game.isKingUnderAttack(game.getTurn())) {
+            Chess.PieceColor winner = game.getTurn() == Chess.PieceColor.WHITE
+                    ? Chess.PieceColor.BLACK : Chess.PieceColor.WHITE;
+            System.out.println("Checkmate! " + winner + " wins.");
+        } else {
+            System.out.println("Stalemate! The game is a draw.");
+        }
+    }
+
+    /**
+     * Lets the computer search for and make its move, and prints what it found.
+     *
+     * @return true if a move was made, false if the computer has no legal move
+     */
+    private boolean playComputerMove() {
+        SearchResult result = computer.search(game, SearchLimits.time(COMPUTER_MOVE_MILLIS));
+        if (result.getBestMove() == Move.NONE) {
+            System.out.println(game.getTurn() + " has no legal moves.");
+            return false;
+        }
+
+        System.out.println("Computer plays " + Move.toString(result.getBestMove()) + " (" + result + ")");
+        game.performMove(new Move(result.getBestMove()));
+        return true;
     }
 
     /**
@@ -172,11 +249,10 @@ public class ChessConsole {
 
                 System.out.print("[");
 
-                Position current = Position.generateFromRankAndFile(i, j);
-                if (game.isEmpty(current))
+                if (board[i][j] == null)
                     System.out.print(" ");
                 else
-                    System.out.print(game.getPieceAt(current));
+                    System.out.print(board[i][j]);
 
                 System.out.print("]");
 
@@ -198,11 +274,36 @@ public class ChessConsole {
 
     /**
      * Provides debug functionality for development/testing purposes.
+     * "debug perft &lt;depth&gt;" counts the leaf nodes of the legal move tree from the
+     * current position, and "debug divide &lt;depth&gt;" breaks the count down by root move.
+     *
+     * @param input the words of the debug command
      */
-    private void debug() {
-        System.out.println("This method facilitates tests.");
-        // Example for testing available destinations (commented out)
-        //System.out.println(game.getAllDestinationsByColor(Chess.PieceColor.WHITE).length);
+    private void debug(String[] input) {
+        if (input.length != 3 || !(input[1].equals("perft") || input[1].equals("divide"))
+                || !input[2].matches("\\d{1,2}")) {
+            System.out.println("Usage: debug perft <depth> | debug divide <depth>");
+            return;
+        }
+
+        int depth = Integer.parseInt(input[2]);
+        if (perft == null)
+            perft = new Perft();
+        long start = System.nanoTime();
+        long nodes = 0;
+
+        if (input[1].equals("divide")) {
+            for (Map.Entry<Move, Long> entry : perft.divide(game, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = perft.perft(game, depth);
+        }
+
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        System.out.println("Nodes: " + nodes + ", time: " + elapsed / 1_000_000 + " ms, "
+                + nodes * 1_000_000_000L / elapsed + " nodes/s");
     }
 
     /**
@@ -210,6 +311,7 @@ public class ChessConsole {
      */
     private void printInstructions() {
         System.out.println("Input 'p' to play chess.");
+        System.out.println("Input 'c' to play chess against the computer.");
         System.out.println("Input 'l' to list the puzzles in the database.");
         System.out.println("Input 'a <filename>' to add new puzzles into the"
                 + " database.");
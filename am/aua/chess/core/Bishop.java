@@ -1,7 +1,5 @@
 package am.aua.chess.core;
 
-import java.util.ArrayList;
-
 /**
  * Represents a Bishop chess piece.
  * Inherits behavior from the abstract Piece class.
@@ -44,54 +42,30 @@ public class Bishop extends Piece {
      * @return an array of possible destination positions
      */
     public Position[] allDestinations(Chess chess, Position p) {
-        return Bishop.reachablePositions(chess, p);
+        return Bitboards.toPositions(destinations(chess, Bitboards.square(p)));
+    }
+
+    /**
+     * Returns all legal destination squares for the Bishop as a bitboard.
+     * @param chess the current state of the chessboard
+     * @param square the square index of the Bishop
+     * @return bitboard of valid destination squares
+     */
+    long destinations(Chess chess, int square) {
+        return Bishop.reachableSquares(chess, square, this.getPieceColor());
     }
 
     /**
-     * Computes all reachable diagonal positions from the given position.
+     * Computes all reachable diagonal squares from the given square
+     * with a single lookup in the precomputed magic tables.
      * This method is also used by the Queen (hence it's static).
      * @param chess the current chess board state
-     * @param p the starting position
-     * @return an array of all reachable positions for a Bishop
+     * @param square the starting square
+     * @param color the Bishop's color
+     * @return bitboard of all reachable squares for a Bishop
      */
-    static Position[] reachablePositions(Chess chess, Position p) {
+    static long reachableSquares(Chess chess, int square, Chess.PieceColor color) {
         // Accessed by Queens, does not have to be public
-        ArrayList<Position> result = new ArrayList<>();
-
-        // Directions: top-right, top-left, bottom-right, bottom-left
-        int[] rankOffsets = {1, -1, 1, -1};
-        int[] fileOffsets = {1, 1, -1, -1};
-
-        // Try each diagonal direction
-        for (int d = 0; d < 4; d++) {
-            int i = p.getRank() + rankOffsets[d];
-            int j = p.getFile() + fileOffsets[d];
-
-            // Traverse in the current diagonal direction
-            while (i >= 0 && i < Chess.BOARD_RANKS
-                    && j >= 0 && j < Chess.BOARD_FILES) {
-
-                Position current = Position.generateFromRankAndFile(i, j);
-
-                if (chess.isEmpty(current)) {
-                    // The square is empty; Bishop can move here
-                    result.add(current);
-                } else {
-                    // The square has a piece
-                    // Check if it's an opponent's piece
-                    if (chess.getPieceAt(current).getPieceColor()
-                            != chess.getPieceAt(p).getPieceColor())
-                        result.add(current); // Can capture
-                    break; // Cannot move past another piece
-                }
-
-                // Move to the next square in this direction
-                i += rankOffsets[d];
-                j += fileOffsets[d];
-            }
-        }
-
-        // Convert the result to an array and return
-        return result.toArray(new Position[]{});
+        return Bitboards.bishopAttacks(square, chess.getOccupancy()) & ~chess.getOccupancy(color);
     }
 }
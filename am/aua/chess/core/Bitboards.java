@@ -0,0 +1,300 @@
+package am.aua.chess.core;
+
+/**
+ * Static helpers for working with bitboards: sets of squares stored in a single {@code long}.
+ * Bit i of a bitboard stands for square i = rank * 8 + file, using the same orientation
+ * as {@link Position} (square 0 is A8, square 63 is H1).
+ */
+public final class Bitboards {
+
+    /** Bitboard with no squares set. */
+    public static final long EMPTY = 0L;
+
+    /** Rank and file steps of the four rook directions. */
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    /** Rank and file steps of the four bishop directions. */
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {-1, 1}, {1, -1}, {-1, -1}};
+
+    /** Relevant blocker squares of a rook on each square (board edges excluded). */
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+
+    /**
+     * Magic multipliers mapping a blocker configuration to a table index.
+     * Found with a random search over sparse candidates; any value that maps
+     * every blocker subset of a square without conflicting attack sets works.
+     */
+    private static final long[] ROOK_MAGICS = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+            0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+            0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+            0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+            0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+            0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+            0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+            0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+            0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+            0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+            0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+            0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+            0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+            0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+            0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+            0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+            0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+            0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+            0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+            0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+            0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+            0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+            0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+            0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+            0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+            0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+            0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L
+    };
+
+    /** Right shift applied after the magic multiplication (64 minus the mask size). */
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+
+    /** Attack sets per square, indexed by the magic index of the blockers. */
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    /** Squares a knight attacks from each square. */
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+
+    /** Squares a king attacks from each square. */
+    private static final long[] KING_ATTACKS = new long[64];
+
+    /** Squares a pawn captures on from each square, indexed by color ordinal. */
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Build the attack tables once, when the class is loaded
+    static {
+        int[][] knightPattern = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        int[][] kingPattern = {{-1, -1}, {0, -1}, {1, -1}, {-1, 0}, {1, 0}, {-1, 1}, {0, 1}, {1, 1}};
+        int[][] whitePawnPattern = {{-1, -1}, {-1, 1}};
+        int[][] blackPawnPattern = {{1, -1}, {1, 1}};
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_ATTACKS[sq] = leaperAttacks(sq, knightPattern);
+            KING_ATTACKS[sq] = leaperAttacks(sq, kingPattern);
+
+            // White pawns capture "up" (decreasing rank), black pawns "down"
+            PAWN_ATTACKS[Chess.PieceColor.WHITE.ordinal()][sq] = leaperAttacks(sq, whitePawnPattern);
+            PAWN_ATTACKS[Chess.PieceColor.BLACK.ordinal()][sq] = leaperAttacks(sq, blackPawnPattern);
+
+            initSlider(sq, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_ATTACKS);
+            initSlider(sq, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+    }
+
+    /**
+     * Private constructor, this class only holds static helpers.
+     */
+    private Bitboards() {
+    }
+
+    /**
+     * Converts a rank and a file into a square index.
+     * @param rank the rank (0–7)
+     * @param file the file (0–7)
+     * @return the square index (0–63)
+     */
+    public static int square(int rank, int file) {
+        return rank * Chess.BOARD_FILES + file;
+    }
+
+    /**
+     * Converts a position into a square index.
+     * @param p the position
+     * @return the square index (0–63)
+     */
+    public static int square(Position p) {
+        return p.getSquare();
+    }
+
+    /**
+     * Returns the rank of a square index.
+     * @param square the square index (0–63)
+     * @return the rank (0–7)
+     */
+    public static int rankOf(int square) {
+        return square / Chess.BOARD_FILES;
+    }
+
+    /**
+     * Returns the file of a square index.
+     * @param square the square index (0–63)
+     * @return the file (0–7)
+     */
+    public static int fileOf(int square) {
+        return square % Chess.BOARD_FILES;
+    }
+
+    /**
+     * Returns a bitboard with only the given square set.
+     * @param square the square index (0–63)
+     * @return the single-square bitboard
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Converts a bitboard into an array of positions, in increasing square order.
+     * @param set the bitboard
+     * @return an array with one position per set bit
+     */
+    public static Position[] toPositions(long set) {
+        Position[] result = new Position[Long.bitCount(set)];
+        for (int i = 0; set != 0; i++) {
+            int sq = Long.numberOfTrailingZeros(set);
+            result[i] = Position.fromSquare(sq);
+            set &= set - 1; // Clear the lowest set bit
+        }
+        return result;
+    }
+
+    /**
+     * Returns the squares attacked by a rook, stopping at (and including) the first blocker
+     * in every direction.
+     * @param square the rook's square
+     * @param occupied all occupied squares
+     * @return the attacked squares
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_ATTACKS[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square])
+                >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Returns the squares attacked by a bishop, stopping at (and including) the first blocker
+     * in every direction.
+     * @param square the bishop's square
+     * @param occupied all occupied squares
+     * @return the attacked squares
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_ATTACKS[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square])
+                >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Returns the squares attacked by a queen: the union of rook and bishop attacks.
+     * @param square the queen's square
+     * @param occupied all occupied squares
+     * @return the attacked squares
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Returns the squares attacked by a knight.
+     * @param square the knight's square
+     * @return the attacked squares
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * Returns the squares attacked by a king.
+     * @param square the king's square
+     * @return the attacked squares
+     */
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Returns the squares a pawn of the given color captures on.
+     * @param color the pawn's color
+     * @param square the pawn's square
+     * @return the attacked squares
+     */
+    public static long pawnAttacks(Chess.PieceColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * Computes the squares reached by a fixed pattern of jumps, dropping those off the board.
+     * @param sq the starting square
+     * @param pattern the rank and file offsets of each jump
+     * @return the reached squares
+     */
+    private static long leaperAttacks(int sq, int[][] pattern) {
+        long result = 0;
+        for (int[] offset : pattern) {
+            int rank = rankOf(sq) + offset[0];
+            int file = fileOf(sq) + offset[1];
+            if (rank >= 0 && rank < Chess.BOARD_RANKS && file >= 0 && file < Chess.BOARD_FILES)
+                result |= bit(square(rank, file));
+        }
+        return result;
+    }
+
+    /**
+     * Fills the attack table of one square for one kind of slider.
+     * @param sq the square
+     * @param directions the slider's rank and file steps
+     * @param masks the relevant-blocker masks to fill
+     * @param magics the magic multipliers of the slider
+     * @param shifts the shifts to fill
+     * @param attacks the attack tables to fill
+     */
+    private static void initSlider(int sq, int[][] directions, long[] masks, long[] magics,
+                                   int[] shifts, long[][] attacks) {
+        long mask = slidingAttacks(sq, 0, directions, true);
+        int bits = Long.bitCount(mask);
+        masks[sq] = mask;
+        shifts[sq] = 64 - bits;
+        attacks[sq] = new long[1 << bits];
+
+        // Enumerate every subset of the mask and store its attack set at the magic index
+        long subset = 0;
+        do {
+            int index = (int) ((subset * magics[sq]) >>> shifts[sq]);
+            attacks[sq][index] = slidingAttacks(sq, subset, directions, false);
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+    }
+
+    /**
+     * Computes slider attacks by walking each ray; only used to build the tables.
+     * @param sq the slider's square
+     * @param occupied the blockers
+     * @param directions the slider's rank and file steps
+     * @param maskOnly if true, leave out the last square of each ray (the relevant-blocker mask)
+     * @return the attacked squares
+     */
+    private static long slidingAttacks(int sq, long occupied, int[][] directions, boolean maskOnly) {
+        long result = 0;
+        for (int[] d : directions) {
+            int rank = rankOf(sq) + d[0];
+            int file = fileOf(sq) + d[1];
+            while (rank >= 0 && rank < Chess.BOARD_RANKS && file >= 0 && file < Chess.BOARD_FILES) {
+                boolean last = rank + d[0] < 0 || rank + d[0] >= Chess.BOARD_RANKS
+                        || file + d[1] < 0 || file + d[1] >= Chess.BOARD_FILES;
+                if (maskOnly && last)
+                    break;
+                result |= bit(square(rank, file));
+                if ((occupied & bit(square(rank, file))) != 0)
+                    break;
+                rank += d[0];
+                file += d[1];
+            }
+        }
+        return result;
+    }
+}
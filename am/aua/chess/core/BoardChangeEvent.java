@@ -0,0 +1,147 @@
+package am.aua.chess.core;
+
+import java.util.Arrays;
+
+/**
+ * Describes everything one move changed on the board: the moving piece, the piece it
+ * captured, and any second piece moved or removed along with it (the rook in castling,
+ * the pawn taken en passant) or a promotion. The rules played here have no castling,
+ * en passant or promotion yet, so those parts are always empty for now; views should
+ * still handle them, and {@link #applyTo(Piece[][])} does.
+ * Events and the pieces they hold are immutable, so they can be handed to other threads.
+ */
+public class BoardChangeEvent {
+
+    /** The move of the main piece. */
+    private final Move move;
+
+    /** The moving piece as it stands on the destination after the move. */
+    private final Piece movedPiece;
+
+    /** The captured piece and the square it stood on, or null if nothing was captured. */
+    private final Piece capturedPiece;
+    private final Position capturedPosition;
+
+    /** The move of a second piece, such as the rook in castling, or null. */
+    private final Move secondaryMove;
+
+    /** The side to move after the move. */
+    private final Chess.PieceColor turn;
+
+    /**
+     * Constructs an event.
+     * @param move the move of the main piece
+     * @param movedPiece the moving piece after the move (the new piece, for a promotion)
+     * @param capturedPiece the captured piece, or null
+     * @param capturedPosition the square of the captured piece (the destination, except
+     *                         for en passant), or null
+     * @param secondaryMove the move of a second piece, or null
+     * @param turn the side to move after the move
+     */
+    BoardChangeEvent(Move move, Piece movedPiece, Piece capturedPiece, Position capturedPosition,
+                     Move secondaryMove, Chess.PieceColor turn) {
+        this.move = move;
+        this.movedPiece = movedPiece;
+        this.capturedPiece = capturedPiece;
+        this.capturedPosition = capturedPosition;
+        this.secondaryMove = secondaryMove;
+        this.turn = turn;
+    }
+
+    /**
+     * Returns the move of the main piece.
+     * @return the move
+     */
+    public Move getMove() {
+        return this.move;
+    }
+
+    /**
+     * Returns the moving piece as it stands on the destination after the move.
+     * @return the piece
+     */
+    public Piece getMovedPiece() {
+        return this.movedPiece;
+    }
+
+    /**
+     * Returns the captured piece.
+     * @return the piece, or null if nothing was captured
+     */
+    public Piece getCapturedPiece() {
+        return this.capturedPiece;
+    }
+
+    /**
+     * Returns the square the captured piece stood on: the destination, except for en passant.
+     * @return the position, or null if nothing was captured
+     */
+    public Position getCapturedPosition() {
+        return this.capturedPosition;
+    }
+
+    /**
+     * Returns the move of a second piece, such as the rook in castling.
+     * @return the move, or null if no other piece moved
+     */
+    public Move getSecondaryMove() {
+        return this.secondaryMove;
+    }
+
+    /**
+     * Returns the side to move after the move.
+     * @return PieceColor.WHITE or PieceColor.BLACK
+     */
+    public Chess.PieceColor getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * Returns every square whose contents the move changed, each once.
+     * @return the positions
+     */
+    public Position[] getChangedPositions() {
+        Position[] changed = new Position[4];
+        int count = 0;
+        changed[count++] = this.move.getOrigin();
+        changed[count++] = this.move.getDestination();
+        if (this.capturedPosition != null && !this.capturedPosition.equals(this.move.getDestination()))
+            changed[count++] = this.capturedPosition;
+        if (this.secondaryMove != null) {
+            changed[count++] = this.secondaryMove.getOrigin();
+            changed[count++] = this.secondaryMove.getDestination();
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    /**
+     * Applies the change to a copy of the board, as returned by {@link Chess#getBoard()}.
+     * @param board the board before the move, indexed by rank and file
+     */
+    public void applyTo(Piece[][] board) {
+        if (this.capturedPosition != null)
+            board[this.capturedPosition.getRank()][this.capturedPosition.getFile()] = null;
+        if (this.secondaryMove != null) {
+            Position from = this.secondaryMove.getOrigin();
+            Position to = this.secondaryMove.getDestination();
+            board[to.getRank()][to.getFile()] = board[from.getRank()][from.getFile()];
+            board[from.getRank()][from.getFile()] = null;
+        }
+        board[this.move.getOrigin().getRank()][this.move.getOrigin().getFile()] = null;
+        board[this.move.getDestination().getRank()][this.move.getDestination().getFile()] = getMovedPiece();
+    }
+
+    /**
+     * Returns a compact description of the change, for logs and remote viewers.
+     * Format: "origin destination", then "x" and the captured piece if there was one.
+     * @return the change as a string
+     */
+    public String toString() {
+        String result = this.move.toString();
+        if (this.capturedPiece != null)
+            result += " x" + this.capturedPiece;
+        if (this.secondaryMove != null)
+            result += ", " + this.secondaryMove;
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package am.aua.chess.core;
+
+/**
+ * Receives the changes made to a game's board, so that a view can update only
+ * the squares that changed instead of reading the whole board again.
+ */
+public interface BoardChangeListener {
+
+    /**
+     * Called after each move performed with {@link Chess#performMove(Move)}.
+     * @param event what the move changed
+     */
+    void boardChanged(BoardChangeEvent event);
+}
@@ -1,6 +1,6 @@
 package am.aua.chess.core;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Core class representing the state and logic of a chess game.
@@ -18,12 +18,103 @@ public class Chess implements Cloneable {
     public static final int WHITE_PAWN_STARTING_RANK = 6;
     public static final int BLACK_PAWN_STARTING_RANK = 1;
 
-    /** 2D array representing the chessboard. */
-    private Piece[][] board;
+    /** Piece type indices, used to address the bitboards of a position. */
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    /** Number of distinct piece types. */
+    public static final int PIECE_TYPES = 6;
+
+    /** Game phase with all knights, bishops, rooks and queens still on the board (see getPhase). */
+    public static final int MAX_PHASE = 24;
+
+    /** The colors indexed by ordinal; values() would copy the array on every call. */
+    private static final PieceColor[] COLORS = PieceColor.values();
+
+    /** Marker stored in the mailbox for an empty square. */
+    private static final byte NO_PIECE = -1;
+
+    /** Undo record bits: the origin or destination square carried a moved-flag before the move. */
+    private static final int UNDO_ORIGIN_MOVED = 1 << 16;
+    private static final int UNDO_DESTINATION_MOVED = 1 << 17;
+
+    /** Undo record bit: the move was a capture or a pawn move, so no earlier position can repeat. */
+    private static final int UNDO_IRREVERSIBLE = 1 << 18;
+
+    /** The listeners of a game nobody listens to. */
+    private static final BoardChangeListener[] NO_LISTENERS = new BoardChangeListener[0];
+
+    /** Initial capacity of the undo history; it doubles when full. */
+    private static final int INITIAL_HISTORY_CAPACITY = 256;
+
+    /** Shared piece instances indexed by piece code (color * PIECE_TYPES + type). */
+    private static final Piece[] PIECES = {
+            new Pawn(PieceColor.WHITE), new Knight(PieceColor.WHITE), new Bishop(PieceColor.WHITE),
+            new Rook(PieceColor.WHITE), new Queen(PieceColor.WHITE), new King(PieceColor.WHITE),
+            new Pawn(PieceColor.BLACK), new Knight(PieceColor.BLACK), new Bishop(PieceColor.BLACK),
+            new Rook(PieceColor.BLACK), new Queen(PieceColor.BLACK), new King(PieceColor.BLACK)
+    };
+
+    /** Same as PIECES, but with rooks and kings that have already moved. */
+    private static final Piece[] MOVED_PIECES = {
+            PIECES[0], PIECES[1], PIECES[2],
+            new Rook(PieceColor.WHITE, true), PIECES[4], new King(PieceColor.WHITE, true),
+            PIECES[6], PIECES[7], PIECES[8],
+            new Rook(PieceColor.BLACK, true), PIECES[10], new King(PieceColor.BLACK, true)
+    };
+
+    /** One bitboard per piece code, marking the squares occupied by that kind of piece. */
+    private long[] pieceBitboards;
+
+    /** One bitboard per color, marking the squares occupied by that color. */
+    private long[] colorBitboards;
+
+    /** Bitboard of all occupied squares. */
+    private long occupied;
+
+    /** Squares holding a rook or king that has already moved (for castling logic). */
+    private long movedPieces;
+
+    /** Piece code on each square, or NO_PIECE. Lets getPieceAt avoid scanning the bitboards. */
+    private byte[] squares;
 
     /** Number of moves made since the beginning of the game. Used to determine turn. */
     private int numberOfMoves;
 
+    /** Undo records of the moves made so far, packed into ints (see makeMove). */
+    private int[] history;
+
+    /** Zobrist key of the position before each move in history. */
+    private long[] keyHistory;
+
+    /** Zobrist key of the current position, updated on every move. */
+    private long key;
+
+    /** Zobrist key of the pawns alone, updated whenever a pawn is placed or removed. */
+    private long pawnKey;
+
+    /** Number of records in use in history. */
+    private int historySize;
+
+    /** Material plus piece-square score, white minus black, for the middlegame and the endgame. */
+    private int middlegameScore;
+    private int endgameScore;
+
+    /** Sum of the phase weights of all pieces on the board (see getPhase). */
+    private int phase;
+
+    /** Key of the position whose game-over state was last computed, and that state (see isGameOver). */
+    private long gameOverKey;
+    private boolean gameOverKnown;
+    private boolean gameOver;
+
+    /** Listeners told about every move performed with performMove; replaced, never changed in place. */
+    private BoardChangeListener[] listeners = NO_LISTENERS;
+
     /**
      * Default constructor that initializes the board to the standard starting arrangement.
      */
@@ -75,29 +166,37 @@ public class Chess implements Cloneable {
     public Chess(String arrangement, PieceColor turn) throws IllegalArrangementException {
         verifyArrangement(arrangement);
         this.numberOfMoves = turn.ordinal();
-        this.board = new Piece[BOARD_RANKS][BOARD_FILES];
+        this.pieceBitboards = new long[2 * PIECE_TYPES];
+        this.colorBitboards = new long[2];
+        this.squares = new byte[BOARD_RANKS * BOARD_FILES];
+        this.history = new int[INITIAL_HISTORY_CAPACITY];
+        this.keyHistory = new long[INITIAL_HISTORY_CAPACITY];
+        Arrays.fill(this.squares, NO_PIECE);
 
         // Map characters to corresponding pieces and place them on the board
         for (int i = 0; i < arrangement.length(); i++) {
             switch (arrangement.charAt(i)) {
-                case 'R': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Rook(PieceColor.WHITE); break;
-                case 'r': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Rook(PieceColor.BLACK); break;
-                case 'S': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Rook(PieceColor.WHITE, true); break;
-                case 's': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Rook(PieceColor.BLACK, true); break;
-                case 'N': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Knight(PieceColor.WHITE); break;
-                case 'n': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Knight(PieceColor.BLACK); break;
-                case 'B': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Bishop(PieceColor.WHITE); break;
-                case 'b': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Bishop(PieceColor.BLACK); break;
-                case 'K': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new King(PieceColor.WHITE); break;
-                case 'k': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new King(PieceColor.BLACK); break;
-                case 'L': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new King(PieceColor.WHITE, true); break;
-                case 'l': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new King(PieceColor.BLACK, true); break;
-                case 'Q': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Queen(PieceColor.WHITE); break;
-                case 'q': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Queen(PieceColor.BLACK); break;
-                case 'P': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Pawn(PieceColor.WHITE); break;
-                case 'p': this.board[i/BOARD_RANKS][i%BOARD_FILES] = new Pawn(PieceColor.BLACK); break;
+                case 'R': case 'S': putPiece(pieceCode(ROOK, PieceColor.WHITE), i); break;
+                case 'r': case 's': putPiece(pieceCode(ROOK, PieceColor.BLACK), i); break;
+                case 'N': putPiece(pieceCode(KNIGHT, PieceColor.WHITE), i); break;
+                case 'n': putPiece(pieceCode(KNIGHT, PieceColor.BLACK), i); break;
+                case 'B': putPiece(pieceCode(BISHOP, PieceColor.WHITE), i); break;
+                case 'b': putPiece(pieceCode(BISHOP, PieceColor.BLACK), i); break;
+                case 'K': case 'L': putPiece(pieceCode(KING, PieceColor.WHITE), i); break;
+                case 'k': case 'l': putPiece(pieceCode(KING, PieceColor.BLACK), i); break;
+                case 'Q': putPiece(pieceCode(QUEEN, PieceColor.WHITE), i); break;
+                case 'q': putPiece(pieceCode(QUEEN, PieceColor.BLACK), i); break;
+                case 'P': putPiece(pieceCode(PAWN, PieceColor.WHITE), i); break;
+                case 'p': putPiece(pieceCode(PAWN, PieceColor.BLACK), i); break;
             }
+
+            // Moved rooks and kings are written with 'S' and 'L'
+            char c = Character.toUpperCase(arrangement.charAt(i));
+            if (c == 'S' || c == 'L')
+                this.movedPieces |= Bitboards.bit(i);
         }
+
+        this.key = computeKey();
     }
 
     /**
@@ -106,21 +205,27 @@ public class Chess implements Cloneable {
      */
     public Piece[][] getBoard() {
         Piece[][] boardCopy = new Piece[BOARD_RANKS][BOARD_FILES];
-        for (int i = 0; i < BOARD_RANKS; i++)
-            for (int j = 0; j < BOARD_FILES; j++)
-                if (this.board[i][j] != null)
-                    boardCopy[i][j] = (Piece) this.board[i][j].clone();
+        for (long set = this.occupied; set != 0; set &= set - 1) {
+            int sq = Long.numberOfTrailingZeros(set);
+            boardCopy[Bitboards.rankOf(sq)][Bitboards.fileOf(sq)] = pieceOn(sq).clone();
+        }
         return boardCopy;
     }
 
     /**
      * Returns a deep clone of this Chess object.
+     * Board change listeners are not copied: moves on the clone are not reported.
      * @return cloned Chess object
      */
     public Chess clone() {
         try {
             Chess copy = (Chess) super.clone();
-            copy.board = this.getBoard();
+            copy.pieceBitboards = this.pieceBitboards.clone();
+            copy.colorBitboards = this.colorBitboards.clone();
+            copy.squares = this.squares.clone();
+            copy.history = this.history.clone();
+            copy.keyHistory = this.keyHistory.clone();
+            copy.listeners = NO_LISTENERS;
             return copy;
         } catch (CloneNotSupportedException e) {
             return null;
@@ -132,33 +237,140 @@ public class Chess implements Cloneable {
      * @return PieceColor.WHITE or PieceColor.BLACK
      */
     public PieceColor getTurn() {
-        return PieceColor.values()[this.numberOfMoves % 2];
+        return COLORS[this.numberOfMoves % 2];
     }
 
     /**
-     * Currently a placeholder — always returns false.
-     * @return false (no checkmate/stalemate logic implemented)
+     * Returns the Zobrist key of the current position.
+     * The key covers the pieces, their moved-flags and the side to move, and is
+     * updated incrementally on every move, so reading it costs nothing.
+     * @return the 64-bit position key
      */
-    public boolean isGameOver() {
+    public long getKey() {
+        return this.key;
+    }
+
+    /**
+     * Returns the Zobrist key of the pawn structure alone: positions with the same
+     * pawns on the same squares share it, whatever the other pieces do.
+     * A position without pawns has key 0.
+     * @return the pawn key
+     */
+    public long getPawnKey() {
+        return this.pawnKey;
+    }
+
+    /**
+     * Checks whether the current position already occurred earlier in the game,
+     * with the same side to move. Only the moves since the last capture or pawn
+     * move are examined, since nothing before those can repeat.
+     * @return true if the position is a repetition
+     */
+    public boolean isRepetition() {
+        for (int i = this.historySize - 1; i >= 0; i--) {
+            if ((this.history[i] & UNDO_IRREVERSIBLE) != 0)
+                return false;
+            if ((this.historySize - i) % 2 == 0 && this.keyHistory[i] == this.key)
+                return true;
+        }
         return false;
     }
 
+    /**
+     * Checks whether the side to move has no legal move, that is, whether it is
+     * checkmated (if its king is under attack) or stalemated (otherwise).
+     * The search stops at the first legal move found, and the answer is cached for
+     * the current position key, so asking again before the next move costs nothing.
+     * @return true if the game is over
+     */
+    public boolean isGameOver() {
+        if (!this.gameOverKnown || this.gameOverKey != this.key) {
+            this.gameOver = !hasLegalMove();
+            this.gameOverKey = this.key;
+            this.gameOverKnown = true;
+        }
+        return this.gameOver;
+    }
+
     /**
      * Checks if a given position is empty.
      * @param p the position to check
      * @return true if no piece occupies the square
      */
     public boolean isEmpty(Position p) {
-        return this.board[p.getRank()][p.getFile()] == null;
+        return (this.occupied & Bitboards.bit(Bitboards.square(p))) == 0;
     }
 
     /**
      * Gets the piece at the given position.
+     * The returned piece is shared between positions, which is safe since pieces are immutable.
      * @param p the position to query
      * @return the Piece at the position or null
      */
     public Piece getPieceAt(Position p) {
-        return this.board[p.getRank()][p.getFile()];
+        return pieceOn(Bitboards.square(p));
+    }
+
+    /**
+     * Returns the type of the piece on a square.
+     * @param square the square index (0–63)
+     * @return one of PAWN … KING, or -1 if the square is empty
+     */
+    public int getPieceType(int square) {
+        return this.squares[square] == NO_PIECE ? -1 : this.squares[square] % PIECE_TYPES;
+    }
+
+    /**
+     * Returns the middlegame material and piece-square score of the position.
+     * It is kept up to date by every move, so reading it costs nothing.
+     * @return the score in centipawns, positive if white is better
+     */
+    public int getMiddlegameScore() {
+        return this.middlegameScore;
+    }
+
+    /**
+     * Returns the endgame material and piece-square score of the position.
+     * @return the score in centipawns, positive if white is better
+     */
+    public int getEndgameScore() {
+        return this.endgameScore;
+    }
+
+    /**
+     * Returns how far the game is from the endgame, judged by the pieces left:
+     * MAX_PHASE with all knights, bishops, rooks and queens on the board, 0 with none.
+     * @return the phase, between 0 and MAX_PHASE
+     */
+    public int getPhase() {
+        return Math.min(this.phase, MAX_PHASE);
+    }
+
+    /**
+     * Returns the bitboard of all pieces of the given type and color.
+     * @param type the piece type (PAWN … KING)
+     * @param color the piece color
+     * @return the bitboard of the matching pieces
+     */
+    public long getBitboard(int type, PieceColor color) {
+        return this.pieceBitboards[pieceCode(type, color)];
+    }
+
+    /**
+     * Returns the bitboard of all squares occupied by the given color.
+     * @param color the piece color
+     * @return the occupancy bitboard of that color
+     */
+    public long getOccupancy(PieceColor color) {
+        return this.colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * Returns the bitboard of all occupied squares.
+     * @return the occupancy bitboard
+     */
+    public long getOccupancy() {
+        return this.occupied;
     }
 
     /**
@@ -169,7 +381,19 @@ public class Chess implements Cloneable {
     public Position[] reachableFrom(Position origin) {
         if (origin == null || this.isEmpty(origin))
             return null;
-        return board[origin.getRank()][origin.getFile()].allDestinations(this, origin);
+        return this.getPieceAt(origin).allDestinations(this, origin);
+    }
+
+    /**
+     * Returns all reachable squares from a given origin square as a bitboard.
+     * Like {@link #reachableFrom(Position)}, this does not exclude moves that leave the king in check.
+     * @param origin the origin square index (0–63)
+     * @return bitboard of destinations, empty if the square is empty
+     */
+    public long reachableSquaresFrom(int origin) {
+        if (this.squares[origin] == NO_PIECE)
+            return 0;
+        return pieceOn(origin).destinations(this, origin);
     }
 
     /**
@@ -178,40 +402,255 @@ public class Chess implements Cloneable {
      * @return true if move was legal and performed
      */
     public boolean performMove(Move m) {
-        Position o = m.getOrigin();
-        Position d = m.getDestination();
+        int from = Bitboards.square(m.getOrigin());
+        int to = Bitboards.square(m.getDestination());
+        PieceColor color = this.getTurn();
 
-        if (this.getPieceAt(o).getPieceColor() != this.getTurn())
+        if (this.squares[from] == NO_PIECE || pieceOn(from).getPieceColor() != color)
             return false;
 
-        Position[] reachable = this.reachableFrom(o);
-        Piece[][] boardCopy = this.getBoard();
+        // The destination must be one of the piece's reachable squares
+        if ((pieceOn(from).destinations(this, from) & Bitboards.bit(to)) == 0)
+            return false; // illegal move
 
-        for (int i = 0; i < reachable.length; i++)
-            if (d.getRank() == reachable[i].getRank()
-                    && d.getFile() == reachable[i].getFile()) {
+        Piece captured = pieceOn(to);
+        makeMove(from, to);
 
-                // Perform the move
-                this.board[d.getRank()][d.getFile()] = this.board[o.getRank()][o.getFile()];
-                this.board[o.getRank()][o.getFile()] = null;
+        // Check if move places own king in check
+        if (isKingUnderAttack(color)) {
+            unmakeMove(); // revert move
+            return false;
+        }
 
-                // Mark rook/king as moved (for castling logic)
-                if (this.board[d.getRank()][d.getFile()] instanceof Rook)
-                    ((Rook)this.board[d.getRank()][d.getFile()]).setHasMoved(true);
-                else if (this.board[d.getRank()][d.getFile()] instanceof King)
-                    ((King)this.board[d.getRank()][d.getFile()]).setHasMoved(true);
+        // Tell the views what changed; this ruleset never moves a second piece
+        if (this.listeners.length > 0) {
+            BoardChangeEvent event = new BoardChangeEvent(m, pieceOn(to),
+                    captured, captured == null ? null : m.getDestination(),
+                    null, getTurn());
+            for (BoardChangeListener listener : this.listeners)
+                listener.boardChanged(event);
+        }
 
-                // Check if move places own king in check
-                if (isKingUnderAttack(this.getTurn())) {
-                    this.board = boardCopy; // revert move
-                    return false;
-                }
+        return true;
+    }
 
-                this.numberOfMoves++; // increment turn
-                return true;
+    /**
+     * Registers a listener to be told about every move performed with {@link #performMove(Move)}.
+     * Moves made with makeMove, as search does, are not reported.
+     * @param listener the listener
+     */
+    public void addBoardChangeListener(BoardChangeListener listener) {
+        BoardChangeListener[] extended = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        extended[this.listeners.length] = listener;
+        this.listeners = extended;
+    }
+
+    /**
+     * Unregisters a listener added with {@link #addBoardChangeListener(BoardChangeListener)}.
+     * @param listener the listener
+     */
+    public void removeBoardChangeListener(BoardChangeListener listener) {
+        for (int i = 0; i < this.listeners.length; i++) {
+            if (this.listeners[i] == listener) {
+                BoardChangeListener[] reduced = new BoardChangeListener[this.listeners.length - 1];
+                System.arraycopy(this.listeners, 0, reduced, 0, i);
+                System.arraycopy(this.listeners, i + 1, reduced, i, reduced.length - i);
+                this.listeners = reduced.length == 0 ? NO_LISTENERS : reduced;
+                return;
             }
+        }
+    }
+
+    /**
+     * Generates all legal moves of the side to move into a caller-owned list.
+     * The list is cleared first. Nothing is allocated.
+     * @param list the list to fill with encoded moves (see {@link Move})
+     */
+    public void generateLegalMoves(MoveList list) {
+        list.clear();
+        generateMoves(list, ~getOccupancy(getTurn()));
+
+        // Keep only the moves that do not leave the king in check
+        PieceColor turn = getTurn();
+        int kingSquare = getKingSquare(turn);
+        boolean inCheck = isKingUnderAttack(turn);
+        int legal = 0;
+        for (int i = 0; i < list.size(); i++)
+            if (isLegal(list.get(i), kingSquare, inCheck))
+                list.set(legal++, list.get(i));
+        list.truncate(legal);
+    }
 
-        return false; // illegal move
+    /**
+     * Appends the pseudo-legal captures of the side to move to a list.
+     * Together with {@link #generateQuiets(MoveList)} these are all pseudo-legal moves;
+     * use {@link #isLegal(int, int, boolean)} to reject those that leave the king in check.
+     * @param list the list to append to
+     */
+    public void generateCaptures(MoveList list) {
+        generateMoves(list, this.colorBitboards[1 - getTurn().ordinal()]);
+    }
+
+    /**
+     * Appends the pseudo-legal non-capturing moves of the side to move to a list.
+     * @param list the list to append to
+     */
+    public void generateQuiets(MoveList list) {
+        generateMoves(list, ~this.occupied);
+    }
+
+    /**
+     * Checks whether an encoded move could have been generated in this position,
+     * for moves that come from elsewhere, such as a hash table or another position.
+     * @param move the encoded move
+     * @return true if the move is pseudo-legal for the side to move
+     */
+    public boolean isPseudoLegal(int move) {
+        if (move == Move.NONE)
+            return false;
+        int from = Move.originOf(move);
+        int to = Move.destinationOf(move);
+        if (this.squares[from] == NO_PIECE || this.squares[from] / PIECE_TYPES != getTurn().ordinal())
+            return false;
+
+        // The capture flag must match the destination, and no other flag is ever generated
+        int flags = (this.colorBitboards[1 - getTurn().ordinal()] & Bitboards.bit(to)) != 0 ? Move.CAPTURE : 0;
+        return move == Move.encode(from, to, flags) && (pieceOn(from).destinations(this, from) & Bitboards.bit(to)) != 0;
+    }
+
+    /**
+     * Checks whether a move generated for the side to move leaves its own king safe.
+     * @param move the encoded move; it must be one of the generated (pseudo-legal) moves
+     * @return true if the move is legal
+     */
+    public boolean isLegal(int move) {
+        PieceColor turn = getTurn();
+        return isLegal(move, getKingSquare(turn), isKingUnderAttack(turn));
+    }
+
+    /**
+     * Checks whether a pseudo-legal move of the side to move leaves its own king safe.
+     * Most moves are decided without making them: a piece that is not on a line with its
+     * king cannot be pinned, so unless the king is in check the move is legal.
+     * Callers checking many moves of one position pass the king square and check state once.
+     * @param move the encoded move
+     * @param kingSquare the square of the mover's king
+     * @param inCheck whether the mover's king is currently in check
+     * @return true if the move is legal
+     */
+    public boolean isLegal(int move, int kingSquare, boolean inCheck) {
+        int from = Move.originOf(move);
+        int to = Move.destinationOf(move);
+        PieceColor turn = getTurn();
+        long enemies = this.colorBitboards[1 - turn.ordinal()] & ~Bitboards.bit(to);
+
+        // King moves: the destination must not be attacked once the king has left its square
+        if (from == kingSquare)
+            return (attackersTo(to, this.occupied ^ Bitboards.bit(from)) & enemies) == 0;
+
+        if (!inCheck && (Bitboards.queenAttacks(kingSquare, 0) & Bitboards.bit(from)) == 0)
+            return true;
+
+        makeMove(from, to);
+        boolean legal = !isKingUnderAttack(turn);
+        unmakeMove();
+        return legal;
+    }
+
+    /**
+     * Applies an encoded move without checking its legality and records how to take it back.
+     * @param move the encoded move (see {@link Move})
+     */
+    public void makeMove(int move) {
+        makeMove(Move.originOf(move), Move.destinationOf(move));
+    }
+
+    /**
+     * Applies a move without checking its legality and records how to take it back.
+     * @param m the move to make
+     */
+    public void makeMove(Move m) {
+        makeMove(Bitboards.square(m.getOrigin()), Bitboards.square(m.getDestination()));
+    }
+
+    /**
+     * Applies a move without checking its legality and records how to take it back.
+     * The origin must hold a piece; whatever stands on the destination is captured.
+     * Nothing is allocated, so search loops can try and revert moves freely.
+     * @param from the origin square index (0–63)
+     * @param to the destination square index (0–63)
+     */
+    public void makeMove(int from, int to) {
+        int code = this.squares[from];
+        byte captured = this.squares[to];
+
+        // Pack the undo record: squares, captured piece and the moved-flags that get overwritten
+        int record = from | to << 6 | (captured + 1) << 12;
+        if ((this.movedPieces & Bitboards.bit(from)) != 0)
+            record |= UNDO_ORIGIN_MOVED;
+        if ((this.movedPieces & Bitboards.bit(to)) != 0)
+            record |= UNDO_DESTINATION_MOVED;
+        if (captured != NO_PIECE || code % PIECE_TYPES == PAWN)
+            record |= UNDO_IRREVERSIBLE;
+        if (this.historySize == this.history.length) {
+            this.history = Arrays.copyOf(this.history, 2 * this.history.length);
+            this.keyHistory = Arrays.copyOf(this.keyHistory, 2 * this.keyHistory.length);
+        }
+        this.keyHistory[this.historySize] = this.key;
+        this.history[this.historySize++] = record;
+        long movedBefore = this.movedPieces;
+
+        // Perform the move
+        if (captured != NO_PIECE)
+            removePiece(to);
+        removePiece(from);
+        putPiece(code, to);
+
+        // Mark rook/king as moved (for castling logic)
+        this.movedPieces &= ~(Bitboards.bit(from) | Bitboards.bit(to));
+        if (code % PIECE_TYPES == ROOK || code % PIECE_TYPES == KING)
+            this.movedPieces |= Bitboards.bit(to);
+
+        // Update the key: the moving piece, the captured piece, changed moved-flags and the side
+        this.key ^= Zobrist.PIECE_KEYS[code][from] ^ Zobrist.PIECE_KEYS[code][to] ^ Zobrist.BLACK_TO_MOVE_KEY;
+        if (captured != NO_PIECE)
+            this.key ^= Zobrist.PIECE_KEYS[captured][to];
+        for (long changed = movedBefore ^ this.movedPieces; changed != 0; changed &= changed - 1)
+            this.key ^= Zobrist.MOVED_KEYS[Long.numberOfTrailingZeros(changed)];
+
+        this.numberOfMoves++; // increment turn
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int, int)}, or the last move
+     * performed with {@link #performMove(Move)}.
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (this.historySize == 0)
+            throw new IllegalStateException("There is no move to take back.");
+
+        int record = this.history[--this.historySize];
+        int from = record & 63;
+        int to = (record >>> 6) & 63;
+        int captured = ((record >>> 12) & 15) - 1;
+
+        // Move the piece back and restore the captured one
+        int code = this.squares[to];
+        removePiece(to);
+        putPiece(code, from);
+        if (captured != NO_PIECE)
+            putPiece(captured, to);
+
+        // Restore the moved-flags of both squares
+        this.movedPieces &= ~(Bitboards.bit(from) | Bitboards.bit(to));
+        if ((record & UNDO_ORIGIN_MOVED) != 0)
+            this.movedPieces |= Bitboards.bit(from);
+        if ((record & UNDO_DESTINATION_MOVED) != 0)
+            this.movedPieces |= Bitboards.bit(to);
+
+        this.key = this.keyHistory[this.historySize];
+        this.numberOfMoves--;
     }
 
     /**
@@ -220,30 +659,58 @@ public class Chess implements Cloneable {
      * @return True, if the king in question is under attack by the opponent.
      */
     public boolean isKingUnderAttack(PieceColor kingColor) {
-        Position kingPosition = null;
-        PieceColor opponentColor;
-        Position[] p = null;
-
-        // Find the king's position
-        for (int i = 0; i < BOARD_RANKS; i++)
-            for (int j = 0; j < BOARD_FILES; j++)
-                if (board[i][j] != null
-                        && board[i][j].getPieceColor() == kingColor
-                        && board[i][j] instanceof King)
-                    kingPosition = Position.generateFromRankAndFile(i, j);
-
-        // Determine opponent color
-        opponentColor = (kingColor == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
-
-        // Get all opponent moves
-        p = getAllDestinationsByColor(opponentColor);
-
-        // Check if any attack the king
-        for (int i = 0; i < p.length; i++)
-            if (p[i].equals(kingPosition))
-                return true;
+        PieceColor opponentColor = (kingColor == PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
+        return isSquareAttacked(getKingSquare(kingColor), opponentColor);
+    }
 
-        return false;
+    /**
+     * Returns the square of the king of the given color.
+     * The king bitboard always has exactly one bit set, so no board scan is needed.
+     * @param kingColor the color of the king
+     * @return the square index (0–63) of the king
+     */
+    public int getKingSquare(PieceColor kingColor) {
+        return Long.numberOfTrailingZeros(getBitboard(KING, kingColor));
+    }
+
+    /**
+     * Checks whether any piece of the given color attacks a square.
+     * @param square the square index (0–63)
+     * @param attackerColor the color of the attacking side
+     * @return true if at least one piece of that color attacks the square
+     */
+    public boolean isSquareAttacked(int square, PieceColor attackerColor) {
+        return (attackersTo(square, this.occupied) & getOccupancy(attackerColor)) != 0;
+    }
+
+    /**
+     * Finds every piece, of either color, that attacks a square.
+     * Works backwards from the square: a knight on the square would attack exactly the squares
+     * knights can attack it from, and likewise for the other pieces, so a few table lookups
+     * replace generating the opponent's moves.
+     * @param square the square index (0–63)
+     * @param occupied the blockers to assume for sliding pieces (normally {@link #getOccupancy()})
+     * @return bitboard of the attacking pieces
+     */
+    public long attackersTo(int square, long occupied) {
+        long rooksAndQueens = getBitboard(ROOK, PieceColor.WHITE)
+                | getBitboard(ROOK, PieceColor.BLACK)
+                | getBitboard(QUEEN, PieceColor.WHITE)
+                | getBitboard(QUEEN, PieceColor.BLACK);
+        long bishopsAndQueens = getBitboard(BISHOP, PieceColor.WHITE)
+                | getBitboard(BISHOP, PieceColor.BLACK)
+                | getBitboard(QUEEN, PieceColor.WHITE)
+                | getBitboard(QUEEN, PieceColor.BLACK);
+
+        // A white pawn attacks the square from where a black pawn on it would capture, and vice versa
+        return (Bitboards.pawnAttacks(PieceColor.BLACK, square) & getBitboard(PAWN, PieceColor.WHITE))
+                | (Bitboards.pawnAttacks(PieceColor.WHITE, square) & getBitboard(PAWN, PieceColor.BLACK))
+                | (Bitboards.knightAttacks(square) & (getBitboard(KNIGHT, PieceColor.WHITE)
+                        | getBitboard(KNIGHT, PieceColor.BLACK)))
+                | (Bitboards.kingAttacks(square) & (getBitboard(KING, PieceColor.WHITE)
+                        | getBitboard(KING, PieceColor.BLACK)))
+                | (Bitboards.rookAttacks(square, occupied) & rooksAndQueens)
+                | (Bitboards.bishopAttacks(square, occupied) & bishopsAndQueens);
     }
 
     /**
@@ -252,18 +719,147 @@ public class Chess implements Cloneable {
      * @return an array of all positions they can move to
      */
     public Position[] getAllDestinationsByColor(PieceColor color) {
-        ArrayList<Position> result = new ArrayList<>();
-
-        for (int i = 0; i < BOARD_RANKS; i++)
-            for (int j = 0; j < BOARD_FILES; j++)
-                if (board[i][j] != null && board[i][j].getPieceColor() == color) {
-                    Position[] current = board[i][j].allDestinations(this,
-                            Position.generateFromRankAndFile(i, j));
-                    for (Position currentPosition : current)
-                        if (!result.contains(currentPosition))
-                            result.add(currentPosition);
-                }
-
-        return result.toArray(new Position[]{});
+        long result = 0;
+
+        for (long set = getOccupancy(color); set != 0; set &= set - 1) {
+            int sq = Long.numberOfTrailingZeros(set);
+            result |= pieceOn(sq).destinations(this, sq);
+        }
+
+        return Bitboards.toPositions(result);
+    }
+
+    /**
+     * Adds the moves of all pieces of the side to move, restricted to some target squares.
+     * The moves are pseudo-legal: they may leave the king in check.
+     * @param list the list to append to
+     * @param targets the allowed destination squares
+     */
+    private void generateMoves(MoveList list, long targets) {
+        int us = getTurn().ordinal();
+        long enemies = this.colorBitboards[1 - us];
+
+        for (long pieces = this.colorBitboards[us]; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            for (long set = pieceOn(from).destinations(this, from) & targets; set != 0; set &= set - 1) {
+                int to = Long.numberOfTrailingZeros(set);
+                list.add(Move.encode(from, to, (enemies & Bitboards.bit(to)) != 0 ? Move.CAPTURE : 0));
+            }
+        }
+    }
+
+    /**
+     * Looks for any legal move of the side to move, trying the cheapest cases first.
+     * Out of check, a piece off the lines through its king cannot be pinned, so any
+     * destination it has is legal. King moves are then tested on attack bitboards alone.
+     * Only the remaining pieces, which might be pinned or must answer a check, need
+     * their moves made and taken back.
+     * @return true as soon as one legal move is found
+     */
+    private boolean hasLegalMove() {
+        PieceColor turn = getTurn();
+        long own = this.colorBitboards[turn.ordinal()];
+        int kingSquare = getKingSquare(turn);
+        boolean inCheck = isKingUnderAttack(turn);
+        long others = own & ~Bitboards.bit(kingSquare);
+
+        if (!inCheck) {
+            long free = others & ~Bitboards.queenAttacks(kingSquare, 0);
+            for (long pieces = free; pieces != 0; pieces &= pieces - 1) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                if ((pieceOn(from).destinations(this, from) & ~own) != 0)
+                    return true;
+            }
+            others &= ~free;
+        }
+
+        for (long set = pieceOn(kingSquare).destinations(this, kingSquare) & ~own; set != 0; set &= set - 1)
+            if (isLegal(Move.encode(kingSquare, Long.numberOfTrailingZeros(set), 0), kingSquare, inCheck))
+                return true;
+
+        for (long pieces = others; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            for (long set = pieceOn(from).destinations(this, from) & ~own; set != 0; set &= set - 1)
+                if (isLegal(Move.encode(from, Long.numberOfTrailingZeros(set), 0), kingSquare, inCheck))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Computes the Zobrist key of the position from scratch.
+     * @return the position key
+     */
+    private long computeKey() {
+        long result = 0;
+        for (long set = this.occupied; set != 0; set &= set - 1) {
+            int sq = Long.numberOfTrailingZeros(set);
+            result ^= Zobrist.PIECE_KEYS[this.squares[sq]][sq];
+        }
+        for (long set = this.movedPieces; set != 0; set &= set - 1)
+            result ^= Zobrist.MOVED_KEYS[Long.numberOfTrailingZeros(set)];
+        if (this.getTurn() == PieceColor.BLACK)
+            result ^= Zobrist.BLACK_TO_MOVE_KEY;
+        return result;
+    }
+
+    /**
+     * Combines a piece type and a color into a piece code.
+     * @param type the piece type (PAWN … KING)
+     * @param color the piece color
+     * @return the piece code, indexing the bitboard arrays
+     */
+    private static int pieceCode(int type, PieceColor color) {
+        return color.ordinal() * PIECE_TYPES + type;
+    }
+
+    /**
+     * Returns the shared piece instance standing on a square.
+     * @param square the square index (0–63)
+     * @return the piece, or null if the square is empty
+     */
+    private Piece pieceOn(int square) {
+        byte code = this.squares[square];
+        if (code == NO_PIECE)
+            return null;
+        if ((this.movedPieces & Bitboards.bit(square)) != 0)
+            return MOVED_PIECES[code];
+        return PIECES[code];
+    }
+
+    /**
+     * Places a piece on an empty square, updating the mailbox and all bitboards.
+     * @param code the piece code
+     * @param square the square index (0–63)
+     */
+    private void putPiece(int code, int square) {
+        long b = Bitboards.bit(square);
+        this.squares[square] = (byte) code;
+        this.pieceBitboards[code] |= b;
+        this.colorBitboards[code / PIECE_TYPES] |= b;
+        this.occupied |= b;
+        this.middlegameScore += PieceSquareTables.MIDDLEGAME[code][square];
+        this.endgameScore += PieceSquareTables.ENDGAME[code][square];
+        this.phase += PieceSquareTables.PHASE_WEIGHTS[code % PIECE_TYPES];
+        if (code % PIECE_TYPES == PAWN)
+            this.pawnKey ^= Zobrist.PIECE_KEYS[code][square];
+    }
+
+    /**
+     * Removes the piece from an occupied square, updating the mailbox and all bitboards.
+     * @param square the square index (0–63)
+     */
+    private void removePiece(int square) {
+        long b = ~Bitboards.bit(square);
+        int code = this.squares[square];
+        this.squares[square] = NO_PIECE;
+        this.pieceBitboards[code] &= b;
+        this.colorBitboards[code / PIECE_TYPES] &= b;
+        this.occupied &= b;
+        this.middlegameScore -= PieceSquareTables.MIDDLEGAME[code][square];
+        this.endgameScore -= PieceSquareTables.ENDGAME[code][square];
+        this.phase -= PieceSquareTables.PHASE_WEIGHTS[code % PIECE_TYPES];
+        if (code % PIECE_TYPES == PAWN)
+            this.pawnKey ^= Zobrist.PIECE_KEYS[code][square];
     }
 }
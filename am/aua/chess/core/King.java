@@ -1,15 +1,14 @@
 package am.aua.chess.core;
 
-import java.util.ArrayList;
-
 /**
  * Represents a King chess piece.
  * Tracks whether the King has moved (important for castling logic).
+ * The flag cannot change after construction.
  */
 public class King extends Piece {
 
     /** Indicates whether the King has moved from its original position. */
-    private boolean hasMoved;
+    private final boolean hasMoved;
 
     /**
      * Default constructor.
@@ -46,14 +45,6 @@ public class King extends Piece {
         return this.hasMoved;
     }
 
-    /**
-     * Sets whether the King has moved.
-     * @param hasMoved true if the King has moved
-     */
-    public void setHasMoved(boolean hasMoved) {
-        this.hasMoved = hasMoved;
-    }
-
     /**
      * Returns a string representation of the King.
      * Uses 'K' for unmoved white king, 'L' for moved white king,
@@ -82,31 +73,18 @@ public class King extends Piece {
      * @return array of valid destination positions
      */
     public Position[] allDestinations(Chess chess, Position p) {
-        // 8 possible surrounding squares (without check consideration)
-        int[][] pattern = {
-                {p.getRank() - 1, p.getFile() - 1},
-                {p.getRank(),     p.getFile() - 1},
-                {p.getRank() + 1, p.getFile() - 1},
-
-                {p.getRank() - 1, p.getFile()},
-                {p.getRank() + 1, p.getFile()},
-
-                {p.getRank() - 1, p.getFile() + 1},
-                {p.getRank(),     p.getFile() + 1},
-                {p.getRank() + 1, p.getFile() + 1}
-        };
-
-        ArrayList<Position> result = new ArrayList<>();
-
-        // Add legal positions that are either empty or contain opponent's piece
-        for (int i = 0; i < pattern.length; i++) {
-            Position potential = Position.generateFromRankAndFile(pattern[i][0], pattern[i][1]);
-            if (potential != null && (chess.isEmpty(potential)
-                    || chess.getPieceAt(potential).getPieceColor()
-                    != chess.getPieceAt(p).getPieceColor()))
-                result.add(potential);
-        }
+        return Bitboards.toPositions(destinations(chess, Bitboards.square(p)));
+    }
 
-        return result.toArray(new Position[]{});
+    /**
+     * Returns all legal destination squares for the King as a bitboard.
+     * Does not currently include check detection or castling logic.
+     * @param chess the current chess board state
+     * @param square the square index of the King
+     * @return bitboard of valid destination squares
+     */
+    long destinations(Chess chess, int square) {
+        // 8 surrounding squares, minus squares held by our own pieces
+        return Bitboards.kingAttacks(square) & ~chess.getOccupancy(this.getPieceColor());
     }
 }
@@ -1,7 +1,5 @@
 package am.aua.chess.core;
 
-import java.util.ArrayList;
-
 /**
  * Represents a Knight chess piece.
  * Inherits from the abstract {@link Piece} class.
@@ -44,33 +42,17 @@ public class Knight extends Piece {
      * @return array of valid destination positions
      */
     public Position[] allDestinations(Chess chess, Position p) {
-        // 8 possible L-shaped moves (2 by 1 or 1 by 2)
-        int[][] pattern = {
-                {p.getRank() + 2, p.getFile() + 1},
-                {p.getRank() + 2, p.getFile() - 1},
-                {p.getRank() - 2, p.getFile() + 1},
-                {p.getRank() - 2, p.getFile() - 1},
-
-                {p.getRank() + 1, p.getFile() + 2},
-                {p.getRank() + 1, p.getFile() - 2},
-                {p.getRank() - 1, p.getFile() + 2},
-                {p.getRank() - 1, p.getFile() - 2}
-        };
-
-        ArrayList<Position> result = new ArrayList<>();
-
-        // Check each potential destination
-        for (int i = 0; i < pattern.length; i++) {
-            Position potential = Position.generateFromRankAndFile(pattern[i][0], pattern[i][1]);
-
-            // Add position if it's on the board and either empty or occupied by opponent
-            if (potential != null &&
-                    (chess.isEmpty(potential)
-                            || chess.getPieceAt(potential).getPieceColor()
-                            != chess.getPieceAt(p).getPieceColor()))
-                result.add(potential);
-        }
+        return Bitboards.toPositions(destinations(chess, Bitboards.square(p)));
+    }
 
-        return result.toArray(new Position[]{});
+    /**
+     * Returns all legal destination squares for the Knight as a bitboard.
+     * @param chess the current chess board state
+     * @param square the square index of the Knight
+     * @return bitboard of valid destination squares
+     */
+    long destinations(Chess chess, int square) {
+        // Precomputed L-shaped jumps, minus squares held by our own pieces
+        return Bitboards.knightAttacks(square) & ~chess.getOccupancy(this.getPieceColor());
     }
 }
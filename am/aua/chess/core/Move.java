@@ -2,16 +2,34 @@ package am.aua.chess.core;
 
 /**
  * Represents a chess move consisting of an origin and a destination position.
- * This class is immutable from the outside — both origin and destination
- * are returned as new copies to preserve encapsulation.
+ * This class is immutable, and so are the positions it holds, so they are
+ * shared rather than copied.
+ * <p>
+ * Move generation and search use a compact encoding instead: an {@code int}
+ * holding the origin square (bits 0–5), the destination square (bits 6–11) and
+ * flags. This class is the adapter between the two for the console and the UI.
  */
 public class Move {
 
+    /** Flag of encoded moves that capture a piece. */
+    public static final int CAPTURE = 1 << 12;
+
+    /** Encoded moves store the promotion piece type plus one in these bits (0 = no promotion). */
+    public static final int PROMOTION_SHIFT = 13;
+    public static final int PROMOTION_MASK = 7 << PROMOTION_SHIFT;
+
+    /** Flags of encoded castling and en passant moves. */
+    public static final int CASTLE = 1 << 16;
+    public static final int EN_PASSANT = 1 << 17;
+
+    /** The encoded value that stands for "no move"; no real move has equal origin and destination. */
+    public static final int NONE = 0;
+
     /** The starting position of the move. */
-    private Position origin;
+    private final Position origin;
 
     /** The ending position of the move. */
-    private Position destination;
+    private final Position destination;
 
     /**
      * Constructs a new move from the given origin to destination positions.
@@ -19,9 +37,16 @@ public class Move {
      * @param destination the ending position
      */
     public Move(Position origin, Position destination) {
-        // Create deep copies to ensure immutability
-        this.origin = new Position(origin);
-        this.destination = new Position(destination);
+        this.origin = origin;
+        this.destination = destination;
+    }
+
+    /**
+     * Constructs a move from its compact encoding. The flags are not kept.
+     * @param move the encoded move
+     */
+    public Move(int move) {
+        this(Position.fromSquare(originOf(move)), Position.fromSquare(destinationOf(move)));
     }
 
     /**
@@ -30,24 +55,24 @@ public class Move {
      * @param other the move to copy
      */
     public Move(Move other) {
-        this.origin = new Position(other.origin);
-        this.destination = new Position(other.destination);
+        this.origin = other.origin;
+        this.destination = other.destination;
     }
 
     /**
-     * Returns a copy of the origin position of the move.
-     * @return a new Position representing the origin
+     * Returns the origin position of the move.
+     * @return the Position representing the origin
      */
     public Position getOrigin() {
-        return new Position(this.origin);
+        return this.origin;
     }
 
     /**
-     * Returns a copy of the destination position of the move.
-     * @return a new Position representing the destination
+     * Returns the destination position of the move.
+     * @return the Position representing the destination
      */
     public Position getDestination() {
-        return new Position(this.destination);
+        return this.destination;
     }
 
     /**
@@ -58,4 +83,60 @@ public class Move {
     public String toString() {
         return this.origin.toString() + " " + this.destination.toString();
     }
+
+    /**
+     * Encodes a move into an int.
+     * @param origin the origin square index (0–63)
+     * @param destination the destination square index (0–63)
+     * @param flags any of CAPTURE, CASTLE, EN_PASSANT and a promotion, or 0
+     * @return the encoded move
+     */
+    public static int encode(int origin, int destination, int flags) {
+        return origin | destination << 6 | flags;
+    }
+
+    /**
+     * Returns the origin square of an encoded move.
+     * @param move the encoded move
+     * @return the origin square index (0–63)
+     */
+    public static int originOf(int move) {
+        return move & 63;
+    }
+
+    /**
+     * Returns the destination square of an encoded move.
+     * @param move the encoded move
+     * @return the destination square index (0–63)
+     */
+    public static int destinationOf(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Checks whether an encoded move captures a piece.
+     * @param move the encoded move
+     * @return true for captures
+     */
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * Returns the piece type an encoded move promotes to.
+     * @param move the encoded move
+     * @return the piece type (Chess.KNIGHT … Chess.QUEEN), or -1 for no promotion
+     */
+    public static int promotionOf(int move) {
+        return ((move & PROMOTION_MASK) >>> PROMOTION_SHIFT) - 1;
+    }
+
+    /**
+     * Returns the string representation of an encoded move, in the same format as toString.
+     * @param move the encoded move
+     * @return the move as a string
+     */
+    public static String toString(int move) {
+        return Position.fromSquare(originOf(move)) + " " + Position.fromSquare(destinationOf(move));
+    }
 }
@@ -0,0 +1,90 @@
+package am.aua.chess.core;
+
+/**
+ * A reusable list of moves in their compact int encoding (see {@link Move}).
+ * The backing array is allocated once, so search and perft loops can generate
+ * moves into the same list over and over without creating garbage.
+ */
+public final class MoveList {
+
+    /** Capacity of every list; no chess position has more than 218 legal moves. */
+    public static final int CAPACITY = 256;
+
+    /** The encoded moves; only the first size entries are in use. */
+    private final int[] moves = new int[CAPACITY];
+
+    /** Number of moves in the list. */
+    private int size;
+
+    /**
+     * Returns the number of moves in the list.
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the move at an index.
+     * @param i the index, below size()
+     * @return the encoded move
+     */
+    public int get(int i) {
+        return this.moves[i];
+    }
+
+    /**
+     * Replaces the move at an index.
+     * @param i the index, below size()
+     * @param move the encoded move
+     */
+    public void set(int i, int move) {
+        this.moves[i] = move;
+    }
+
+    /**
+     * Appends a move.
+     * @param move the encoded move
+     */
+    public void add(int move) {
+        this.moves[this.size++] = move;
+    }
+
+    /**
+     * Checks whether the list holds a move.
+     * @param move the encoded move
+     * @return true if the move is in the list
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < this.size; i++)
+            if (this.moves[i] == move)
+                return true;
+        return false;
+    }
+
+    /**
+     * Drops the moves at and after an index.
+     * @param newSize the number of moves to keep, at most size()
+     */
+    public void truncate(int newSize) {
+        this.size = newSize;
+    }
+
+    /**
+     * Removes all moves, keeping the backing array.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Returns the moves as a string, one move per entry.
+     * @return the string representation of the list
+     */
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < this.size; i++)
+            result.append(i == 0 ? "" : ", ").append(Move.toString(this.moves[i]));
+        return result.append("]").toString();
+    }
+}
@@ -1,7 +1,5 @@
 package am.aua.chess.core;
 
-import java.util.ArrayList;
-
 /**
  * Represents a Pawn chess piece.
  * Implements movement and capturing rules for both white and black pawns.
@@ -50,54 +48,41 @@ public class Pawn extends Piece {
      * @return array of valid destination positions
      */
     public Position[] allDestinations(Chess chess, Position p) {
-        ArrayList<Position> result = new ArrayList<>();
-        Chess.PieceColor myColor = chess.getPieceAt(p).getPieceColor();
-
-        // Potential destination positions
-        Position front = null, jump = null, left = null, right = null;
-
-        if (myColor == Chess.PieceColor.WHITE) {
-            // White pawns move "up" (decreasing rank)
-            front = Position.generateFromRankAndFile(p.getRank() - 1, p.getFile());
-
-            // Check if at starting rank for potential 2-step move
-            if (p.getRank() == Chess.WHITE_PAWN_STARTING_RANK)
-                jump = Position.generateFromRankAndFile(Chess.WHITE_PAWN_STARTING_RANK - 2, p.getFile());
+        return Bitboards.toPositions(destinations(chess, Bitboards.square(p)));
+    }
 
-            // Diagonal captures
-            left = Position.generateFromRankAndFile(p.getRank() - 1, p.getFile() - 1);
-            right = Position.generateFromRankAndFile(p.getRank() - 1, p.getFile() + 1);
+    /**
+     * Returns all legal destination squares for a pawn as a bitboard.
+     * @param chess the current state of the chessboard
+     * @param square the square index of the pawn
+     * @return bitboard of valid destination squares
+     */
+    long destinations(Chess chess, int square) {
+        long empty = ~chess.getOccupancy();
+        long opponents = chess.getOccupancy() & ~chess.getOccupancy(this.getPieceColor());
+
+        // Diagonal captures if enemy piece is present
+        long result = Bitboards.pawnAttacks(this.getPieceColor(), square) & opponents;
+
+        // White pawns move "up" (decreasing rank), black pawns move "down"
+        int step, startingRank;
+        if (this.getPieceColor() == Chess.PieceColor.WHITE) {
+            step = -Chess.BOARD_FILES;
+            startingRank = Chess.WHITE_PAWN_STARTING_RANK;
         } else {
-            // Black pawns move "down" (increasing rank)
-            front = Position.generateFromRankAndFile(p.getRank() + 1, p.getFile());
-
-            // Check if at starting rank for potential 2-step move
-            if (p.getRank() == Chess.BLACK_PAWN_STARTING_RANK)
-                jump = Position.generateFromRankAndFile(Chess.BLACK_PAWN_STARTING_RANK + 2, p.getFile());
-
-            // Diagonal captures
-            left = Position.generateFromRankAndFile(p.getRank() + 1, p.getFile() - 1);
-            right = Position.generateFromRankAndFile(p.getRank() + 1, p.getFile() + 1);
+            step = Chess.BOARD_FILES;
+            startingRank = Chess.BLACK_PAWN_STARTING_RANK;
         }
 
-        // Add valid forward move if the square is empty
-        if (front != null && chess.isEmpty(front))
-            result.add(front);
-
-        // Add diagonal captures if enemy piece is present
-        if (left != null && chess.getPieceAt(left) != null
-                && chess.getPieceAt(left).getPieceColor() != this.getPieceColor())
-            result.add(left);
-
-        if (right != null && chess.getPieceAt(right) != null
-                && chess.getPieceAt(right).getPieceColor() != this.getPieceColor())
-            result.add(right);
-
-        // Add jump move if both front and jump squares are empty
-        if (front != null && chess.isEmpty(front) && jump != null && chess.isEmpty(jump))
-            result.add(jump);
+        // Forward move if the square is empty, jump if both squares are empty
+        int front = square + step;
+        if (front >= 0 && front < Chess.BOARD_RANKS * Chess.BOARD_FILES
+                && (empty & Bitboards.bit(front)) != 0) {
+            result |= Bitboards.bit(front);
+            if (Bitboards.rankOf(square) == startingRank && (empty & Bitboards.bit(front + step)) != 0)
+                result |= Bitboards.bit(front + step);
+        }
 
-        // Return all legal destinations
-        return result.toArray(new Position[]{});
+        return result;
     }
 }
@@ -3,11 +3,12 @@ package am.aua.chess.core;
 /**
  * Abstract base class for all chess pieces.
  * Provides common functionality such as color tracking and cloning.
+ * Pieces are immutable, so a position can hand out the same instances for every square.
  */
 public abstract class Piece implements Cloneable {
 
     /** The color of the piece (WHITE or BLACK). */
-    private Chess.PieceColor color;
+    private final Chess.PieceColor color;
 
     /**
      * Constructs a piece with the specified color.
@@ -34,6 +35,21 @@ public abstract class Piece implements Cloneable {
      */
     public abstract Position[] allDestinations(Chess chess, Position p);
 
+    /**
+     * Computes all legal destinations for the piece as a bitboard.
+     * Subclasses override this with table lookups; the default converts
+     * the result of {@link #allDestinations(Chess, Position)}.
+     * @param chess the current chess board state
+     * @param square the square index of the piece
+     * @return bitboard of valid destination squares
+     */
+    long destinations(Chess chess, int square) {
+        long result = 0;
+        for (Position d : allDestinations(chess, Position.fromSquare(square)))
+            result |= Bitboards.bit(Bitboards.square(d));
+        return result;
+    }
+
     /**
      * Returns the color of the piece.
      * @return the color (WHITE or BLACK)
@@ -3,41 +3,35 @@ package am.aua.chess.core;
 /**
  * Represents a position on a chessboard using (rank, file) coordinates.
  * Provides utilities for converting between board coordinates and chess notation.
+ * Positions are immutable: the 64 instances are created once and shared, so
+ * the factory methods never allocate and positions can be compared by identity.
  */
-public class Position {
+public final class Position {
 
-    /** Row index on the board (0 = top, 7 = bottom). */
-    private int rank;
-
-    /** Column index on the board (0 = 'A', 7 = 'H'). */
-    private int file;
+    /** The canonical instance of every square, indexed by rank * 8 + file. */
+    private static final Position[] POSITIONS = new Position[Chess.BOARD_RANKS * Chess.BOARD_FILES];
 
-    /**
-     * Default constructor.
-     * Initializes the position to (0, 0).
-     */
-    public Position() {
-        this.rank = 0;
-        this.file = 0;
+    static {
+        for (int rank = 0; rank < Chess.BOARD_RANKS; rank++)
+            for (int file = 0; file < Chess.BOARD_FILES; file++)
+                POSITIONS[rank * Chess.BOARD_FILES + file] = new Position(rank, file);
     }
 
-    /**
-     * Copy constructor.
-     * @param other another Position to copy
-     */
-    public Position(Position other) {
-        this.setRank(other.rank);
-        this.setFile(other.file);
-    }
+    /** Row index on the board (0 = top, 7 = bottom). */
+    private final int rank;
+
+    /** Column index on the board (0 = 'A', 7 = 'H'). */
+    private final int file;
 
     /**
      * Private constructor with specified rank and file.
+     * Only used to create the canonical instances.
      * @param rank the rank (row)
      * @param file the file (column)
      */
     private Position(int rank, int file) {
-        this.setRank(rank);
-        this.setFile(file);
+        this.rank = rank;
+        this.file = file;
     }
 
     /**
@@ -57,21 +51,11 @@ public class Position {
     }
 
     /**
-     * Sets the rank if within valid board bounds.
-     * @param rank the rank to set
-     */
-    public void setRank(int rank) {
-        if (rank >= 0 && rank < Chess.BOARD_RANKS)
-            this.rank = rank;
-    }
-
-    /**
-     * Sets the file if within valid board bounds.
-     * @param file the file to set
+     * Gets the square index of this position, as used by bitboards.
+     * @return rank * 8 + file
      */
-    public void setFile(int file) {
-        if (file >= 0 && file < Chess.BOARD_FILES)
-            this.file = file;
+    public int getSquare() {
+        return this.rank * Chess.BOARD_FILES + this.file;
     }
 
     /**
@@ -83,27 +67,25 @@ public class Position {
     }
 
     /**
-     * Generates a Position object from a chess notation string (e.g., "E2").
+     * Returns the Position for a chess notation string (e.g., "E2" or "e2").
      * Returns null if the input is invalid.
      * @param s the string representing a position
      * @return a Position object or null
      */
     public static Position generateFromString(String s) {
-        s = s.toLowerCase();
-        if (s.length() != 2
-                || (s.charAt(0) < 'a' || s.charAt(0) >= 'a' + Chess.BOARD_FILES)
-                || (s.charAt(1) < '1' || s.charAt(1) >= '1' + Chess.BOARD_RANKS)
-        )
+        if (s.length() != 2)
             return null;
 
         // Convert character notation to internal indices
-        int file = s.charAt(0) - 'a';
+        int file = Character.toLowerCase(s.charAt(0)) - 'a';
         int rank = Chess.BOARD_RANKS - (s.charAt(1) - '0');
+        if (s.charAt(1) < '1' || s.charAt(1) >= '1' + Chess.BOARD_RANKS)
+            return null;
         return generateFromRankAndFile(rank, file);
     }
 
     /**
-     * Generates a Position object from rank and file values.
+     * Returns the Position for the given rank and file values.
      * Returns null if the coordinates are out of bounds.
      * @param rank the rank (0–7)
      * @param file the file (0–7)
@@ -113,10 +95,19 @@ public class Position {
         Position result = null;
         if (rank >= 0 && rank < Chess.BOARD_RANKS
                 && file >= 0 && file < Chess.BOARD_FILES)
-            result = new Position(rank, file);
+            result = POSITIONS[rank * Chess.BOARD_FILES + file];
         return result;
     }
 
+    /**
+     * Returns the Position for a square index, as used by bitboards.
+     * @param square the square index (0–63)
+     * @return the Position of that square
+     */
+    public static Position fromSquare(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * Appends additional positions to an array.
      * (Deprecated: use collections instead)
@@ -138,13 +129,20 @@ public class Position {
 
     /**
      * Checks if this position is equal to another.
+     * Every square has exactly one instance, so this is an identity check.
      * @param other the object to compare
      * @return true if both positions have the same rank and file
      */
     public boolean equals(Object other) {
-        if (other == null || other.getClass() != Position.class)
-            return false;
-        Position otherPosition = (Position) other;
-        return this.rank == otherPosition.rank && this.file == otherPosition.file;
+        return this == other;
+    }
+
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}.
+     * Every square gets a distinct value, its index rank * 8 + file.
+     * @return the hash code
+     */
+    public int hashCode() {
+        return this.getSquare();
     }
 }
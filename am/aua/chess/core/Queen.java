@@ -1,7 +1,5 @@
 package am.aua.chess.core;
 
-import java.util.ArrayList;
-
 /**
  * Represents a Queen chess piece.
  * Combines the movement logic of both the Rook and the Bishop.
@@ -45,18 +43,18 @@ public class Queen extends Piece {
      * @return array of all reachable positions
      */
     public Position[] allDestinations(Chess chess, Position p) {
-        ArrayList<Position> result = new ArrayList<>();
-
-        // Get all rook-like (horizontal/vertical) moves
-        Position[] rookPositions = Rook.reachablePositions(chess, p);
-        for (Position rp : rookPositions)
-            result.add(rp);
-
-        // Get all bishop-like (diagonal) moves
-        Position[] bishopPositions = Bishop.reachablePositions(chess, p);
-        for (Position bp : bishopPositions)
-            result.add(bp);
+        return Bitboards.toPositions(destinations(chess, Bitboards.square(p)));
+    }
 
-        return result.toArray(new Position[]{});
+    /**
+     * Returns all legal destination squares for the Queen as a bitboard.
+     * @param chess the current chess board state
+     * @param square the square index of the Queen
+     * @return bitboard of all reachable squares
+     */
+    long destinations(Chess chess, int square) {
+        // Union of rook-like (horizontal/vertical) and bishop-like (diagonal) moves
+        return Rook.reachableSquares(chess, square, this.getPieceColor())
+                | Bishop.reachableSquares(chess, square, this.getPieceColor());
     }
 }
@@ -1,15 +1,14 @@
 package am.aua.chess.core;
 
-import java.util.ArrayList;
-
 /**
  * Represents a Rook chess piece.
- * Tracks whether the rook has moved (important for castling).
+ * Tracks whether the rook has moved (important for castling); the flag is fixed
+ * when the rook is created, and a rook that moves is represented by another instance.
  */
 public class Rook extends Piece {
 
     /** Indicates whether the rook has moved (used for castling logic). */
-    private boolean hasMoved;
+    private final boolean hasMoved;
 
     /**
      * Default constructor.
@@ -46,14 +45,6 @@ public class Rook extends Piece {
         return this.hasMoved;
     }
 
-    /**
-     * Sets the moved status of the rook.
-     * @param hasMoved true if the rook has moved
-     */
-    public void setHasMoved(boolean hasMoved) {
-        this.hasMoved = hasMoved;
-    }
-
     /**
      * Returns a string representation of the rook.
      * "R" = white, "r" = black, "S/s" = moved rook (used for castling checks).
@@ -79,50 +70,32 @@ public class Rook extends Piece {
      * @return array of valid destination positions
      */
     public Position[] allDestinations(Chess chess, Position p) {
-        return Rook.reachablePositions(chess, p);
+        return Bitboards.toPositions(destinations(chess, Bitboards.square(p)));
     }
 
     /**
-     * Computes all reachable positions for a rook from a given square.
-     * Rooks move horizontally and vertically until they hit a piece or edge.
+     * Returns all legal destination squares for the rook as a bitboard.
+     * @param chess the current state of the chessboard
+     * @param square the square index of the rook
+     * @return bitboard of valid destination squares
+     */
+    long destinations(Chess chess, int square) {
+        return Rook.reachableSquares(chess, square, this.getPieceColor());
+    }
+
+    /**
+     * Computes all reachable squares for a rook from a given square.
+     * Rooks move horizontally and vertically until they hit a piece or edge;
+     * the ray lookup is a single index into the precomputed magic tables.
      * Shared by Queen class, so kept package-private and static.
      *
      * @param chess the chessboard state
-     * @param p the rook's position
-     * @return array of reachable positions
+     * @param square the rook's square
+     * @param color the rook's color
+     * @return bitboard of reachable squares
      */
-    static Position[] reachablePositions(Chess chess, Position p) {
-        // Directions: up, down, right, left
-        int[] rankOffsets = {1, -1, 0, 0};
-        int[] fileOffsets = {0, 0, 1, -1};
-
-        ArrayList<Position> result = new ArrayList<>();
-
-        // Iterate over the 4 directions
-        for (int d = 0; d < 4; d++) {
-            int i = p.getRank() + rankOffsets[d];
-            int j = p.getFile() + fileOffsets[d];
-
-            // Traverse in the given direction until blocked
-            while (i >= 0 && i < Chess.BOARD_RANKS && j >= 0 && j < Chess.BOARD_FILES) {
-                Position current = Position.generateFromRankAndFile(i, j);
-
-                if (chess.isEmpty(current)) {
-                    // Empty square → valid move
-                    result.add(current);
-                } else {
-                    // Occupied → check for opponent's piece
-                    if (chess.getPieceAt(current).getPieceColor() != chess.getPieceAt(p).getPieceColor())
-                        result.add(current); // Can capture
-                    break; // Stop at first obstacle
-                }
-
-                // Move further in the current direction
-                i += rankOffsets[d];
-                j += fileOffsets[d];
-            }
-        }
-
-        return result.toArray(new Position[]{});
+    static long reachableSquares(Chess chess, int square, Chess.PieceColor color) {
+        // Every attacked square is reachable unless it holds a piece of our own
+        return Bitboards.rookAttacks(square, chess.getOccupancy()) & ~chess.getOccupancy(color);
     }
 }
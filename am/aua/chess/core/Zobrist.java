@@ -0,0 +1,37 @@
+package am.aua.chess.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of chess positions.
+ * The key of a position is the XOR of the keys of everything in it, so a move
+ * updates the key by XOR-ing out what it removes and XOR-ing in what it adds.
+ */
+final class Zobrist {
+
+    /** Key of each piece code (color * PIECE_TYPES + type) on each square. */
+    static final long[][] PIECE_KEYS = new long[2 * Chess.PIECE_TYPES][64];
+
+    /** Key of a moved-flag ('S' or 'L') on each square. */
+    static final long[] MOVED_KEYS = new long[64];
+
+    /** Key that is present when black is to move. */
+    static final long BLACK_TO_MOVE_KEY;
+
+    // Fixed seed, so keys are the same on every run
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0DE_2024L);
+        for (long[] keys : PIECE_KEYS)
+            for (int sq = 0; sq < keys.length; sq++)
+                keys[sq] = random.nextLong();
+        for (int sq = 0; sq < MOVED_KEYS.length; sq++)
+            MOVED_KEYS[sq] = random.nextLong();
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    /**
+     * Private constructor, this class only holds static keys.
+     */
+    private Zobrist() {
+    }
+}
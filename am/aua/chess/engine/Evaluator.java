@@ -0,0 +1,165 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Bitboards;
+import am.aua.chess.core.Chess;
+
+/**
+ * Static evaluation of chess positions, in centipawns.
+ * The position keeps its material and piece-square scores up to date as moves are
+ * made, for the middlegame and the endgame; the evaluator adds pawn structure terms
+ * and blends the two by the game phase. The pawn terms are cached in a pawn hash
+ * table, so they are only computed when the pawns have changed.
+ * Each searcher thread uses its own evaluator.
+ */
+public class Evaluator {
+
+    /** Value of each piece type (Chess.PAWN … Chess.KING) in centipawns. */
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    /** Number of entries in the pawn hash table of each evaluator. */
+    private static final int PAWN_TABLE_ENTRIES = 1 << 14;
+
+    /** Penalties for each extra pawn on a file and for a pawn without neighbors, middlegame and endgame. */
+    private static final int DOUBLED_MIDDLEGAME = 10;
+    private static final int DOUBLED_ENDGAME = 20;
+    private static final int ISOLATED_MIDDLEGAME = 10;
+    private static final int ISOLATED_ENDGAME = 15;
+
+    /**
+     * Bonuses for a passed pawn by its rank, counted from its own side. They are modest
+     * because pawns do not promote under these rules; a passer still ties down defenders.
+     */
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 35, 45, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 40, 55, 70, 0};
+
+    /** Shield bonus for each own pawn one and two ranks in front of a king on its back ranks. */
+    private static final int SHIELD_NEAR = 12;
+    private static final int SHIELD_FAR = 6;
+
+    /** The files of each wing, for shields: A–C, D–E and F–H. */
+    private static final long[] WING_FILES = new long[PawnHashTable.WINGS];
+
+    /** Squares of each file, and of the files next to it. */
+    private static final long[] FILES = new long[Chess.BOARD_FILES];
+    private static final long[] ADJACENT_FILES = new long[Chess.BOARD_FILES];
+
+    /** For each color and square, the squares ahead on the same and adjacent files; no enemy pawn there means passed. */
+    private static final long[][] PASSED_SPANS = new long[2][64];
+
+    static {
+        for (int file = 0; file < Chess.BOARD_FILES; file++)
+            for (int rank = 0; rank < Chess.BOARD_RANKS; rank++)
+                FILES[file] |= Bitboards.bit(Bitboards.square(rank, file));
+        for (int file = 0; file < Chess.BOARD_FILES; file++)
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+
+        WING_FILES[PawnHashTable.QUEENSIDE] = FILES[0] | FILES[1] | FILES[2];
+        WING_FILES[PawnHashTable.CENTER] = FILES[3] | FILES[4];
+        WING_FILES[PawnHashTable.KINGSIDE] = FILES[5] | FILES[6] | FILES[7];
+
+        // White pawns advance towards rank index 0, black pawns towards rank index 7
+        for (int sq = 0; sq < 64; sq++) {
+            int file = Bitboards.fileOf(sq);
+            long span = FILES[file] | ADJACENT_FILES[file];
+            for (int rank = 0; rank < Chess.BOARD_RANKS; rank++) {
+                long rankSquares = span & (0xFFL << (rank * 8));
+                if (rank < Bitboards.rankOf(sq))
+                    PASSED_SPANS[Chess.PieceColor.WHITE.ordinal()][sq] |= rankSquares;
+                if (rank > Bitboards.rankOf(sq))
+                    PASSED_SPANS[Chess.PieceColor.BLACK.ordinal()][sq] |= rankSquares;
+            }
+        }
+    }
+
+    /** Cache of pawn structure evaluations. */
+    private final PawnHashTable pawnTable = new PawnHashTable(PAWN_TABLE_ENTRIES);
+
+    /**
+     * Evaluates a position from the point of view of the side to move.
+     * @param chess the position
+     * @return the score in centipawns; positive if the side to move is better
+     */
+    public int evaluate(Chess chess) {
+        PawnHashTable.Entry pawns = this.pawnTable.probe(chess.getPawnKey());
+        if (pawns.key != chess.getPawnKey())
+            evaluatePawns(chess, pawns);
+
+        int middlegame = chess.getMiddlegameScore() + pawns.middlegame
+                + shield(chess, pawns, Chess.PieceColor.WHITE) - shield(chess, pawns, Chess.PieceColor.BLACK);
+        int endgame = chess.getEndgameScore() + pawns.endgame;
+
+        // Taper from the middlegame score with all pieces on the board to the endgame score with none
+        int phase = chess.getPhase();
+        int score = (middlegame * phase + endgame * (Chess.MAX_PHASE - phase)) / Chess.MAX_PHASE;
+
+        return chess.getTurn() == Chess.PieceColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Computes the pawn structure terms of a position into a pawn table entry.
+     * @param chess the position
+     * @param entry the entry to fill; its key is set to the position's pawn key
+     */
+    private static void evaluatePawns(Chess chess, PawnHashTable.Entry entry) {
+        entry.key = chess.getPawnKey();
+        entry.middlegame = 0;
+        entry.endgame = 0;
+
+        for (Chess.PieceColor color : Chess.PieceColor.values()) {
+            int c = color.ordinal();
+            int sign = color == Chess.PieceColor.WHITE ? 1 : -1;
+            long own = chess.getBitboard(Chess.PAWN, color);
+            long enemy = chess.getBitboard(Chess.PAWN,
+                    color == Chess.PieceColor.WHITE ? Chess.PieceColor.BLACK : Chess.PieceColor.WHITE);
+
+            for (int file = 0; file < Chess.BOARD_FILES; file++) {
+                int count = Long.bitCount(own & FILES[file]);
+                if (count > 1) {
+                    entry.middlegame -= sign * DOUBLED_MIDDLEGAME * (count - 1);
+                    entry.endgame -= sign * DOUBLED_ENDGAME * (count - 1);
+                }
+            }
+
+            for (long set = own; set != 0; set &= set - 1) {
+                int sq = Long.numberOfTrailingZeros(set);
+                if ((own & ADJACENT_FILES[Bitboards.fileOf(sq)]) == 0) {
+                    entry.middlegame -= sign * ISOLATED_MIDDLEGAME;
+                    entry.endgame -= sign * ISOLATED_ENDGAME;
+                }
+                if ((enemy & PASSED_SPANS[c][sq]) == 0) {
+                    int relativeRank = color == Chess.PieceColor.WHITE ? 7 - Bitboards.rankOf(sq) : Bitboards.rankOf(sq);
+                    entry.middlegame += sign * PASSED_MIDDLEGAME[relativeRank];
+                    entry.endgame += sign * PASSED_ENDGAME[relativeRank];
+                }
+            }
+
+            // Shields: own pawns one and two ranks in front of the home rank, per wing
+            int homeRank = color == Chess.PieceColor.WHITE ? Chess.BOARD_RANKS - 1 : 0;
+            long near = 0xFFL << ((homeRank - sign) * 8);
+            long far = 0xFFL << ((homeRank - 2 * sign) * 8);
+            for (int wing = 0; wing < PawnHashTable.WINGS; wing++)
+                entry.shields[c][wing] = SHIELD_NEAR * Long.bitCount(own & WING_FILES[wing] & near)
+                        + SHIELD_FAR * Long.bitCount(own & WING_FILES[wing] & far);
+        }
+    }
+
+    /**
+     * Returns the pawn shield bonus of one side's king. It counts only while the king
+     * stays on its first two ranks; further up the board a shield no longer protects it.
+     * @param chess the position
+     * @param pawns the pawn table entry of the position
+     * @param color the king's color
+     * @return the shield bonus in centipawns
+     */
+    private static int shield(Chess chess, PawnHashTable.Entry pawns, Chess.PieceColor color) {
+        int king = chess.getKingSquare(color);
+        int rank = Bitboards.rankOf(king);
+        boolean onBackRanks = color == Chess.PieceColor.WHITE ? rank >= Chess.BOARD_RANKS - 2 : rank <= 1;
+        if (!onBackRanks)
+            return 0;
+
+        int file = Bitboards.fileOf(king);
+        int wing = file <= 2 ? PawnHashTable.QUEENSIDE : file <= 4 ? PawnHashTable.CENTER : PawnHashTable.KINGSIDE;
+        return pawns.shields[color.ordinal()][wing];
+    }
+}
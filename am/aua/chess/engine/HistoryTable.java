@@ -0,0 +1,59 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Move;
+
+/**
+ * The "butterfly" history table: a score for every side, origin and destination,
+ * raised for quiet moves that caused a beta cutoff and lowered for quiet moves
+ * that were tried before one did. Quiet moves are ordered by it.
+ */
+class HistoryTable {
+
+    /** Scores stay strictly between -MAX and MAX. */
+    private static final int MAX = 1 << 14;
+
+    /** Scores indexed by side * 4096 + origin * 64 + destination. */
+    private final int[] scores = new int[2 * 64 * 64];
+
+    /**
+     * Returns the score of a move.
+     * @param side the ordinal of the moving color
+     * @param move the encoded move
+     * @return the history score
+     */
+    int get(int side, int move) {
+        return this.scores[index(side, move)];
+    }
+
+    /**
+     * Adjusts the score of a move. The change shrinks as the score nears its limit,
+     * so scores saturate instead of overflowing and recent results weigh more.
+     * @param side the ordinal of the moving color
+     * @param move the encoded move
+     * @param bonus the change, positive for a good move and negative for a bad one
+     */
+    void update(int side, int move, int bonus) {
+        int i = index(side, move);
+        bonus = Math.max(-MAX, Math.min(MAX, bonus));
+        this.scores[i] += bonus - this.scores[i] * Math.abs(bonus) / MAX;
+    }
+
+    /**
+     * Halves every score, so that a new search keeps what the last one learned
+     * but weighs its own results more.
+     */
+    void age() {
+        for (int i = 0; i < this.scores.length; i++)
+            this.scores[i] /= 2;
+    }
+
+    /**
+     * Computes the table index of a move.
+     * @param side the ordinal of the moving color
+     * @param move the encoded move
+     * @return the index
+     */
+    private static int index(int side, int move) {
+        return side << 12 | Move.originOf(move) << 6 | Move.destinationOf(move);
+    }
+}
@@ -0,0 +1,212 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.Move;
+import am.aua.chess.core.MoveList;
+
+/**
+ * Hands out the legal moves of a position one at a time, best-looking first,
+ * so that alpha-beta finds its cutoffs early. Moves are produced in stages and
+ * each stage is generated only when the previous one is used up, because a
+ * cutoff often comes before the later stages are needed:
+ * the hash move, captures by MVV-LVA, the two killer moves of the ply, and the
+ * remaining quiet moves by their history score.
+ * In quiescence search the picker stops after the captures.
+ * One picker is kept per ply and reused for every node at that ply.
+ */
+class MovePicker {
+
+    /** The stages, in the order they are visited. */
+    private static final int STAGE_HASH_MOVE = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_FIRST_KILLER = 3;
+    private static final int STAGE_SECOND_KILLER = 4;
+    private static final int STAGE_GENERATE_QUIETS = 5;
+    private static final int STAGE_QUIETS = 6;
+    private static final int STAGE_DONE = 7;
+
+    /** The generated moves of the current stage, and their scores at the same indices. */
+    private final MoveList moves = new MoveList();
+    private final int[] scores = new int[MoveList.CAPACITY];
+
+    /** The position and the ordering hints of the current node. */
+    private Chess chess;
+    private HistoryTable history;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+
+    /** Cached for the legality checks of the current node. */
+    private int kingSquare;
+    private boolean inCheck;
+
+    /** The current stage and the next unpicked index in the move list. */
+    private int stage;
+    private int next;
+
+    /** Whether to stop after the captures. */
+    private boolean capturesOnly;
+
+    /**
+     * Prepares the picker for a new node.
+     * @param chess the position, which must not change until the picker is done
+     * @param inCheck whether the side to move is in check
+     * @param hashMove the best move from the transposition table, or Move.NONE
+     * @param firstKiller the most recent killer move of the ply, or Move.NONE
+     * @param secondKiller the older killer move of the ply, or Move.NONE
+     * @param history the history scores of quiet moves
+     */
+    void reset(Chess chess, boolean inCheck, int hashMove, int firstKiller, int secondKiller,
+               HistoryTable history) {
+        this.chess = chess;
+        this.inCheck = inCheck;
+        this.kingSquare = chess.getKingSquare(chess.getTurn());
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.history = history;
+        this.capturesOnly = false;
+        this.stage = STAGE_HASH_MOVE;
+    }
+
+    /**
+     * Prepares the picker to hand out only the captures of a new node, for quiescence search.
+     * @param chess the position, which must not change until the picker is done
+     * @param inCheck whether the side to move is in check
+     */
+    void resetCaptures(Chess chess, boolean inCheck) {
+        reset(chess, inCheck, Move.NONE, Move.NONE, Move.NONE, null);
+        this.capturesOnly = true;
+        this.stage = STAGE_GENERATE_CAPTURES;
+    }
+
+    /**
+     * Returns the next legal move.
+     * @return the encoded move, or Move.NONE when there are no more
+     */
+    int next() {
+        while (true) {
+            switch (this.stage) {
+                case STAGE_HASH_MOVE:
+                    this.stage = STAGE_GENERATE_CAPTURES;
+                    if (isPlayable(this.hashMove))
+                        return this.hashMove;
+                    break;
+
+                case STAGE_GENERATE_CAPTURES:
+                    this.moves.clear();
+                    this.chess.generateCaptures(this.moves);
+                    for (int i = 0; i < this.moves.size(); i++)
+                        this.scores[i] = captureScore(this.moves.get(i));
+                    this.next = 0;
+                    this.stage = STAGE_CAPTURES;
+                    break;
+
+                case STAGE_CAPTURES: {
+                    int move = pickBest();
+                    if (move == Move.NONE)
+                        this.stage = this.capturesOnly ? STAGE_DONE : STAGE_FIRST_KILLER;
+                    else if (move != this.hashMove && isLegal(move))
+                        return move;
+                    break;
+                }
+
+                case STAGE_FIRST_KILLER:
+                    this.stage = STAGE_SECOND_KILLER;
+                    if (isPlayableKiller(this.firstKiller))
+                        return this.firstKiller;
+                    break;
+
+                case STAGE_SECOND_KILLER:
+                    this.stage = STAGE_GENERATE_QUIETS;
+                    if (this.secondKiller != this.firstKiller && isPlayableKiller(this.secondKiller))
+                        return this.secondKiller;
+                    break;
+
+                case STAGE_GENERATE_QUIETS:
+                    this.moves.clear();
+                    this.chess.generateQuiets(this.moves);
+                    int side = this.chess.getTurn().ordinal();
+                    for (int i = 0; i < this.moves.size(); i++)
+                        this.scores[i] = this.history.get(side, this.moves.get(i));
+                    this.next = 0;
+                    this.stage = STAGE_QUIETS;
+                    break;
+
+                case STAGE_QUIETS: {
+                    int move = pickBest();
+                    if (move == Move.NONE)
+                        this.stage = STAGE_DONE;
+                    else if (move != this.hashMove && move != this.firstKiller && move != this.secondKiller
+                            && isLegal(move))
+                        return move;
+                    break;
+                }
+
+                default:
+                    return Move.NONE;
+            }
+        }
+    }
+
+    /**
+     * Scores a capture by MVV-LVA: the most valuable victim first, and among
+     * equal victims the least valuable attacker first.
+     * @param move the capture
+     * @return the ordering score
+     */
+    private int captureScore(int move) {
+        int victim = this.chess.getPieceType(Move.destinationOf(move));
+        int attacker = this.chess.getPieceType(Move.originOf(move));
+        return (victim + 1) * Chess.PIECE_TYPES - attacker;
+    }
+
+    /**
+     * Takes the highest-scoring move left in the list (a step of selection sort,
+     * so only as much of the list is sorted as is actually used).
+     * @return the move, or Move.NONE if the list is used up
+     */
+    private int pickBest() {
+        if (this.next >= this.moves.size())
+            return Move.NONE;
+
+        int best = this.next;
+        for (int i = this.next + 1; i < this.moves.size(); i++)
+            if (this.scores[i] > this.scores[best])
+                best = i;
+
+        int move = this.moves.get(best);
+        this.moves.set(best, this.moves.get(this.next));
+        this.scores[best] = this.scores[this.next];
+        this.moves.set(this.next++, move);
+        return move;
+    }
+
+    /**
+     * Checks a move that was not generated here, such as the hash move.
+     * @param move the encoded move, possibly Move.NONE
+     * @return true if the move is legal in the current position
+     */
+    private boolean isPlayable(int move) {
+        return this.chess.isPseudoLegal(move) && isLegal(move);
+    }
+
+    /**
+     * Checks a killer move: it must be a legal quiet move other than the hash move.
+     * @param move the killer, possibly Move.NONE
+     * @return true if the killer should be tried
+     */
+    private boolean isPlayableKiller(int move) {
+        return move != this.hashMove && !Move.isCapture(move) && isPlayable(move);
+    }
+
+    /**
+     * Checks that a pseudo-legal move does not leave the king in check.
+     * @param move the encoded move
+     * @return true if the move is legal
+     */
+    private boolean isLegal(int move) {
+        return this.chess.isLegal(move, this.kingSquare, this.inCheck);
+    }
+}
@@ -0,0 +1,181 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Chess;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A multi-threaded search in the "Lazy SMP" style.
+ * Every thread searches the same root position with its own Search and its own
+ * copy of the position, and all of them share one transposition table. The helper
+ * threads skip different depths, so they run ahead of the main thread and fill
+ * the table with results the main thread then finds. Only the main thread's
+ * result is reported; the helpers are stopped as soon as it finishes.
+ */
+public class ParallelSearch {
+
+    /**
+     * Depth skipping of the helper threads: helper i uses entry (i - 1) % 20.
+     * Helpers with block size n come in n * 2 phases, so each depth is searched by half of them.
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    /** The transposition table shared by all threads. */
+    private final TranspositionTable table;
+
+    /** One search per thread; the first is the main thread's. */
+    private final Search[] searches;
+
+    /** Threads that run the helper searches; null if there are none. */
+    private final ExecutorService helpers;
+
+    /** Receives the main thread's report after every iteration; may be null. */
+    private SearchListener listener;
+
+    /**
+     * Constructs a parallel search.
+     * @param table the transposition table shared by all threads
+     * @param threads the number of threads, including the calling thread (at least 1)
+     */
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("A search needs at least one thread.");
+
+        this.table = table;
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            this.searches[i] = new Search(table);
+            if (i > 0)
+                this.searches[i].setDepthSkipping(SKIP_SIZE[(i - 1) % SKIP_SIZE.length],
+                        SKIP_PHASE[(i - 1) % SKIP_PHASE.length]);
+        }
+
+        // Daemon threads, so that an idle pool never keeps the program alive
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Report the nodes of all threads with each iteration of the main thread
+        this.searches[0].setListener(result -> {
+            if (this.listener != null)
+                this.listener.iterationFinished(new SearchResult(result.getScore(), result.getDepth(),
+                        getNodes(), result.getTimeMillis(), result.getPrincipalVariation()));
+        });
+    }
+
+    /**
+     * Returns the number of threads, including the main thread.
+     * @return the thread count
+     */
+    public int getThreads() {
+        return this.searches.length;
+    }
+
+    /**
+     * Sets the listener that is told about every iteration completed by the main thread.
+     * @param listener the listener, or null for none
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. A request made while no search
+     * is running stops the next one at once, unless clearStop() is called first.
+     */
+    public void stop() {
+        for (Search search : this.searches)
+            search.stop();
+    }
+
+    /**
+     * Withdraws a stop request. A caller that runs searches on another thread calls this
+     * before handing the search over, so that a stop() arriving in between is not lost.
+     */
+    public void clearStop() {
+        for (Search search : this.searches)
+            search.clearStopRequest();
+    }
+
+    /**
+     * Ends the helper threads. The search cannot be used afterwards.
+     */
+    public void shutdown() {
+        if (this.helpers != null)
+            this.helpers.shutdownNow();
+    }
+
+    /**
+     * Returns the number of nodes visited by all threads in the current or last search.
+     * While the search runs, each thread's count may lag behind a little (see Search.getNodes).
+     * @return the total node count
+     */
+    public long getNodes() {
+        long nodes = 0;
+        for (Search search : this.searches)
+            nodes += search.getNodes();
+        return nodes;
+    }
+
+    /**
+     * Returns the number of nodes each thread visited in the current or last search.
+     * @return the node counts, main thread first
+     */
+    public long[] getNodesPerThread() {
+        long[] nodes = new long[this.searches.length];
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = this.searches[i].getNodes();
+        return nodes;
+    }
+
+    /**
+     * Searches a position for the best move on all threads.
+     * The position is modified by the main thread during the search and restored
+     * before returning; the helpers search their own copies.
+     * A pending stop request of the main thread is not cleared (see clearStop); the
+     * helpers' requests are, since the last search left them stopped.
+     * The node limit counts the main thread's nodes only: the helpers search until the
+     * main thread is done, so the total reported goes past the limit.
+     * @param position the position to search
+     * @param limits the depth, node and time budget of the main thread
+     * @return the main thread's result, with the nodes of all threads
+     */
+    public SearchResult search(Chess position, SearchLimits limits) {
+        // One new table generation for the whole search, however many threads write to it
+        this.table.newSearch();
+
+        // Helpers search without a depth limit until the main thread is done
+        SearchLimits helperLimits = new SearchLimits(0, 0, limits.getTimeMillis());
+        Future<?>[] futures = new Future<?>[this.searches.length - 1];
+        for (int i = 1; i < this.searches.length; i++) {
+            Search helper = this.searches[i];
+            helper.clearStopRequest(); // Stopped at the end of the previous search
+            helper.resetNodes(); // So that the first reports do not count the previous search
+            Chess copy = position.clone();
+            futures[i - 1] = this.helpers.submit(() -> helper.run(copy, helperLimits));
+        }
+
+        SearchResult result = this.searches[0].run(position, limits);
+
+        for (int i = 1; i < this.searches.length; i++)
+            this.searches[i].stop();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A helper search failed.", e.getCause());
+            }
+        }
+
+        return new SearchResult(result.getScore(), result.getDepth(), getNodes(),
+                result.getTimeMillis(), result.getPrincipalVariation());
+    }
+}
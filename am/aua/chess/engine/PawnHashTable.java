@@ -0,0 +1,57 @@
+package am.aua.chess.engine;
+
+/**
+ * A small cache of pawn structure evaluations, keyed by the pawn-only Zobrist key.
+ * The pawns change far less often than the rest of the position, so nearly every
+ * probe finds its entry. The table has a fixed size and always replaces: a new
+ * structure simply overwrites whatever shared its slot.
+ * It is not thread-safe; each searcher thread owns one through its evaluator.
+ */
+class PawnHashTable {
+
+    /** The files of each wing that a pawn shield is counted for. */
+    static final int QUEENSIDE = 0;
+    static final int CENTER = 1;
+    static final int KINGSIDE = 2;
+    static final int WINGS = 3;
+
+    /**
+     * The cached evaluation of one pawn structure.
+     * Entries are preallocated and overwritten in place, so probing allocates nothing.
+     */
+    static class Entry {
+        /** The pawn key the entry was computed for; 0 fits the empty structure, whose scores are all 0. */
+        long key;
+
+        /** Doubled, isolated and passed pawn terms, white minus black. */
+        int middlegame;
+        int endgame;
+
+        /** Shield bonus of each color (by ordinal) for a king castled on each wing. */
+        final int[][] shields = new int[2][WINGS];
+    }
+
+    /** The entries; their number is a power of two. */
+    private final Entry[] entries;
+
+    /**
+     * Allocates a table.
+     * @param entryCount the number of entries, rounded down to a power of two
+     */
+    PawnHashTable(int entryCount) {
+        this.entries = new Entry[Integer.highestOneBit(Math.max(1, entryCount))];
+        for (int i = 0; i < this.entries.length; i++)
+            this.entries[i] = new Entry();
+    }
+
+    /**
+     * Returns the entry slot of a pawn structure.
+     * The caller must check the entry's key: if it differs, the slot holds another
+     * structure, and the caller computes this one into the entry and sets its key.
+     * @param pawnKey the pawn key of the position
+     * @return the entry for the key's slot
+     */
+    Entry probe(long pawnKey) {
+        return this.entries[(int) pawnKey & (this.entries.length - 1)];
+    }
+}
@@ -0,0 +1,141 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.Move;
+import am.aua.chess.core.MoveList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree ("perft") of a chess position.
+ * The counts are a correctness check for move generation, and the time taken
+ * gives its throughput in nodes per second. Root moves are searched in parallel
+ * on a fork/join pool, and subtree counts can be cached in a shared hash table.
+ */
+public class Perft {
+
+    /** Pool that searches the root moves in parallel. */
+    private final ForkJoinPool pool;
+
+    /** Cache of subtree counts: pairs of (checked key, count); null if caching is off. */
+    private final long[] cache;
+
+    /**
+     * Creates a perft counter that uses all available processors and no cache.
+     */
+    public Perft() {
+        this(Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    /**
+     * Creates a perft counter.
+     * @param threads the number of worker threads
+     * @param cacheMegabytes the size of the subtree cache in megabytes, or 0 for none
+     */
+    public Perft(int threads, int cacheMegabytes) {
+        this.pool = new ForkJoinPool(threads);
+        if (cacheMegabytes > 0)
+            this.cache = new long[2 * (int) Long.highestOneBit(
+                    Math.min(1 << 28, (long) cacheMegabytes * 1024 * 1024 / 16))];
+        else
+            this.cache = null;
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree to a given depth.
+     * @param chess the position to start from; it is not modified
+     * @param depth the depth in plies
+     * @return the number of leaf nodes
+     */
+    public long perft(Chess chess, int depth) {
+        long total = 0;
+        for (long count : divide(chess, depth).values())
+            total += count;
+        return depth == 0 ? 1 : total;
+    }
+
+    /**
+     * Counts the leaf nodes below each legal root move.
+     * @param chess the position to start from; it is not modified
+     * @param depth the depth in plies, counting the root move
+     * @return the count for every legal root move, in generation order
+     */
+    public LinkedHashMap<Move, Long> divide(Chess chess, int depth) {
+        LinkedHashMap<Move, Long> result = new LinkedHashMap<>();
+        if (depth < 1)
+            return result;
+
+        // One task per legal root move, each on its own copy of the position
+        ArrayList<Move> moves = new ArrayList<>();
+        ArrayList<RecursiveTask<Long>> tasks = new ArrayList<>();
+        MoveList rootMoves = new MoveList();
+        chess.generateLegalMoves(rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            Chess copy = chess.clone();
+            copy.makeMove(rootMoves.get(i));
+
+            moves.add(new Move(rootMoves.get(i)));
+            tasks.add(new RecursiveTask<Long>() {
+                @Override
+                protected Long compute() {
+                    // One reusable move list per remaining ply
+                    MoveList[] lists = new MoveList[depth];
+                    for (int ply = 0; ply < depth; ply++)
+                        lists[ply] = new MoveList();
+                    return count(copy, depth - 1, lists);
+                }
+            });
+        }
+
+        for (RecursiveTask<Long> task : tasks)
+            this.pool.execute(task);
+        for (int i = 0; i < tasks.size(); i++)
+            result.put(moves.get(i), tasks.get(i).join());
+        return result;
+    }
+
+    /**
+     * Counts leaf nodes depth-first, making and unmaking moves on a single position.
+     * @param chess the position, restored before returning
+     * @param depth the remaining depth
+     * @param lists a preallocated move list for every remaining depth
+     * @return the number of leaf nodes
+     */
+    private long count(Chess chess, int depth, MoveList[] lists) {
+        if (depth == 0)
+            return 1;
+
+        int slot = 0;
+        long check = chess.getKey() ^ depth * 0x9E3779B97F4A7C15L;
+        if (this.cache != null && depth > 1) {
+            slot = (int) (check & (this.cache.length / 2 - 1)) * 2;
+            long count = this.cache[slot + 1];
+            if ((this.cache[slot] ^ count) == check)
+                return count;
+        }
+
+        MoveList list = lists[depth];
+        chess.generateLegalMoves(list);
+
+        // Every legal move at the last ply is one leaf, so there is no need to make them
+        if (depth == 1)
+            return list.size();
+
+        long nodes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            chess.makeMove(list.get(i));
+            nodes += count(chess, depth - 1, lists);
+            chess.unmakeMove();
+        }
+
+        // Entries are written without locks; the XOR check rejects torn ones
+        if (this.cache != null) {
+            this.cache[slot] = check ^ nodes;
+            this.cache[slot + 1] = nodes;
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,467 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.Move;
+import am.aua.chess.core.MoveList;
+
+/**
+ * A chess engine: negamax alpha-beta search with iterative deepening, and a
+ * quiescence search of captures at the leaves.
+ * The search deepens one ply at a time until its depth, node or time budget runs
+ * out, and returns the result of the last completed iteration together with its
+ * principal variation. Results are cached in a transposition table, and moves
+ * are tried in the order of a staged MovePicker (hash move, captures, killers,
+ * then quiet moves by history).
+ * A Search object is not thread-safe; it is used by one thread at a time.
+ */
+public class Search {
+
+    /** The deepest ply the search can reach. */
+    public static final int MAX_PLY = 128;
+
+    /** Score of being checkmated on the spot; mates further away score closer to zero. */
+    public static final int MATE_SCORE = 30000;
+
+    /** A score larger than any real one. */
+    public static final int INFINITY = 32000;
+
+    /** The time and node limits are checked every this many nodes plus one. */
+    private static final int CHECK_INTERVAL = 2047;
+
+    /** Quiescence search skips captures that cannot raise the score to alpha even with this much to spare. */
+    private static final int DELTA_MARGIN = 200;
+
+    /** Cache of search results, possibly shared with other searches. */
+    private final TranspositionTable table;
+
+    /** The evaluation function. */
+    private final Evaluator evaluator = new Evaluator();
+
+    /** The static exchange evaluator, for pruning losing captures. */
+    private final StaticExchange staticExchange = new StaticExchange();
+
+    /** A reusable move picker for every ply. */
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+
+    /** The quiet moves tried so far at every ply, which lose history when another one cuts off. */
+    private final MoveList[] quietsTried = new MoveList[MAX_PLY + 1];
+
+    /** The legal moves at the root. */
+    private final MoveList rootMoves = new MoveList();
+
+    /** Two killer moves per ply: quiet moves that recently caused a cutoff there, newest first. */
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+
+    /** History scores of quiet moves, kept from one search to the next. */
+    private final HistoryTable history = new HistoryTable();
+
+    /** Triangular table of principal variations: row ply holds the best line from that ply. */
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    /** Receives a report after every iteration; may be null. */
+    private SearchListener listener;
+
+    /** The position being searched. */
+    private Chess chess;
+
+    /** Nodes visited in the current search. */
+    private long nodes;
+
+    /**
+     * The node count as seen by other threads: published with every limit check,
+     * after every iteration and at the end of the search.
+     */
+    private volatile long publishedNodes;
+
+    /** Beta cutoffs in the current search, and how many of them the first move tried caused. */
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    /** Node limit and deadline (System.nanoTime) of the current search. */
+    private long maxNodes;
+    private long deadline;
+
+    /** Set by stop(), possibly from another thread. */
+    private volatile boolean stopRequested;
+
+    /** Helper threads of a parallel search skip blocks of skipSize depths, offset by skipPhase; 0 skips none. */
+    private int skipSize = 0;
+    private int skipPhase = 0;
+
+    /** Set once the current search has run out of budget and is unwinding. */
+    private boolean aborted;
+
+    /**
+     * Constructs a search that caches its results in the given table.
+     * @param table the transposition table
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            this.pickers[i] = new MovePicker();
+            this.quietsTried[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Sets the listener that is told about every completed iteration.
+     * @param listener the listener, or null for none
+     */
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. The search then returns
+     * the result of its last completed iteration.
+     */
+    public void stop() {
+        this.stopRequested = true;
+    }
+
+    /**
+     * Returns the number of nodes visited so far by the current or last search.
+     * May be called from another thread; while the search runs, the count may lag
+     * behind by up to CHECK_INTERVAL nodes.
+     * @return the node count
+     */
+    public long getNodes() {
+        return this.publishedNodes;
+    }
+
+    /**
+     * Returns the number of beta cutoffs in the current or last search.
+     * @return the cutoff count
+     */
+    public long getCutoffs() {
+        return this.cutoffs;
+    }
+
+    /**
+     * Returns the number of beta cutoffs caused by the first move tried at a node.
+     * The share of these among all cutoffs measures how good the move ordering is.
+     * @return the first-move cutoff count
+     */
+    public long getFirstMoveCutoffs() {
+        return this.firstMoveCutoffs;
+    }
+
+    /**
+     * Searches a position for the best move.
+     * The position is modified during the search and restored before returning.
+     * @param position the position to search
+     * @param limits the depth, node and time budget
+     * @return the result of the last completed iteration
+     */
+    public SearchResult search(Chess position, SearchLimits limits) {
+        this.stopRequested = false;
+        this.table.newSearch();
+        return run(position, limits);
+    }
+
+    /**
+     * Makes this search a helper of a parallel search, which skips some depths so that
+     * the helpers spread out over different depths instead of all repeating the same work.
+     * Depth d is skipped when (d + phase) / size is odd.
+     * @param size the number of consecutive depths searched or skipped together
+     * @param phase the offset of the first block
+     */
+    void setDepthSkipping(int size, int phase) {
+        this.skipSize = size;
+        this.skipPhase = phase;
+    }
+
+    /**
+     * Clears a stop request before a search is started on another thread, so that a
+     * stop() arriving before that thread gets going is not lost.
+     */
+    void clearStopRequest() {
+        this.stopRequested = false;
+    }
+
+    /**
+     * Zeroes the node count before a search is started on another thread, so that
+     * getNodes() does not report the last search's nodes until that thread gets going.
+     */
+    void resetNodes() {
+        this.nodes = 0;
+        this.publishedNodes = 0;
+    }
+
+    /**
+     * Searches a position without clearing a pending stop request.
+     * The caller starts a new table generation first, once for all threads of a search.
+     * @param position the position to search
+     * @param limits the depth, node and time budget
+     * @return the result of the last completed iteration
+     */
+    SearchResult run(Chess position, SearchLimits limits) {
+        long start = System.nanoTime();
+        this.chess = position;
+        resetNodes();
+        this.cutoffs = 0;
+        this.firstMoveCutoffs = 0;
+        this.aborted = false;
+        this.maxNodes = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+        this.deadline = limits.getTimeMillis() > 0 ? start + limits.getTimeMillis() * 1_000_000 : Long.MAX_VALUE;
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_PLY) : MAX_PLY;
+        this.history.age();
+        for (int[] plyKillers : this.killers)
+            plyKillers[0] = plyKillers[1] = Move.NONE;
+
+        // Without legal moves there is nothing to search: mate or stalemate
+        MoveList rootMoves = this.rootMoves;
+        position.generateLegalMoves(rootMoves);
+        if (rootMoves.size() == 0)
+            return new SearchResult(position.isKingUnderAttack(position.getTurn()) ? -MATE_SCORE : 0,
+                    0, 0, 0, new int[0]);
+
+        SearchResult result = null;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            if (this.skipSize > 0 && depth > 1 && depth < maxDepth
+                    && ((depth + this.skipPhase) / this.skipSize) % 2 != 0)
+                continue;
+
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (this.aborted)
+                break;
+
+            int[] line = new int[this.pvLength[0]];
+            System.arraycopy(this.pvTable[0], 0, line, 0, line.length);
+            this.publishedNodes = this.nodes;
+            result = new SearchResult(score, depth, this.nodes, (System.nanoTime() - start) / 1_000_000, line);
+            if (this.listener != null)
+                this.listener.iterationFinished(result);
+
+            // A forced mate within the searched depth cannot be improved on
+            if (Math.abs(score) >= MATE_SCORE - depth)
+                break;
+        }
+
+        this.publishedNodes = this.nodes;
+
+        // Out of budget before the first iteration finished: fall back to any legal move
+        if (result == null) {
+            result = new SearchResult(0, 0, this.nodes, (System.nanoTime() - start) / 1_000_000,
+                    new int[]{rootMoves.get(0)});
+        }
+        return result;
+    }
+
+    /**
+     * Searches the current position with a window and returns its score.
+     * @param depth the remaining depth in plies
+     * @param ply the distance from the root
+     * @param alpha the score the side to move is already guaranteed
+     * @param beta the score the opponent is already guaranteed
+     * @return the score from the side to move's point of view
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        this.pvLength[ply] = ply;
+        if ((++this.nodes & CHECK_INTERVAL) == 0)
+            checkLimits();
+        if (this.aborted)
+            return 0;
+
+        if (ply > 0 && this.chess.isRepetition())
+            return 0;
+
+        Chess.PieceColor turn = this.chess.getTurn();
+        boolean inCheck = this.chess.isKingUnderAttack(turn);
+        if (inCheck)
+            depth++; // Look one ply deeper at checks, they are forcing
+        if (ply >= MAX_PLY)
+            return this.evaluator.evaluate(this.chess);
+        if (depth <= 0)
+            return quiesce(ply, alpha, beta);
+
+        // Use a cached result if it was searched deep enough
+        long key = this.chess.getKey();
+        long entry = this.table.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha))
+                    return score;
+            }
+        }
+
+        MovePicker picker = this.pickers[ply];
+        picker.reset(this.chess, inCheck, hashMove, this.killers[ply][0], this.killers[ply][1], this.history);
+        MoveList quiets = this.quietsTried[ply];
+        quiets.clear();
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int movesTried = 0;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            movesTried++;
+            this.chess.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            this.chess.unmakeMove();
+            if (this.aborted)
+                return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        recordCutoff(move, ply, depth, movesTried);
+                        break; // The opponent will avoid this position
+                    }
+                }
+            }
+            if (!Move.isCapture(move))
+                quiets.add(move);
+        }
+
+        if (movesTried == 0)
+            return inCheck ? -MATE_SCORE + ply : 0; // Checkmate or stalemate
+
+        int bound = bestScore <= originalAlpha ? TranspositionTable.BOUND_UPPER
+                : bestScore >= beta ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_EXACT;
+        this.table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Searches only captures until the position is quiet, so that the leaves of the
+     * main search are not evaluated in the middle of an exchange.
+     * The side to move may also "stand pat" and take the static evaluation, because it
+     * is never forced to capture. Captures that lose material by static exchange
+     * evaluation, or that could not lift the score to alpha even winning their victim
+     * outright (delta pruning), are skipped.
+     * @param ply the distance from the root
+     * @param alpha the score the side to move is already guaranteed
+     * @param beta the score the opponent is already guaranteed
+     * @return the score from the side to move's point of view
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        this.pvLength[ply] = ply;
+        if ((++this.nodes & CHECK_INTERVAL) == 0)
+            checkLimits();
+        if (this.aborted)
+            return 0;
+
+        int standPat = this.evaluator.evaluate(this.chess);
+        if (standPat >= beta || ply >= MAX_PLY)
+            return standPat;
+
+        // Not even winning a queen would be enough
+        if (standPat + Evaluator.PIECE_VALUES[Chess.QUEEN] + DELTA_MARGIN <= alpha)
+            return alpha;
+        if (standPat > alpha)
+            alpha = standPat;
+
+        MovePicker picker = this.pickers[ply];
+        picker.resetCaptures(this.chess, this.chess.isKingUnderAttack(this.chess.getTurn()));
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            int victim = this.chess.getPieceType(Move.destinationOf(move));
+            if (standPat + Evaluator.PIECE_VALUES[victim] + DELTA_MARGIN <= alpha
+                    || this.staticExchange.evaluate(this.chess, move) < 0)
+                continue;
+
+            this.chess.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            this.chess.unmakeMove();
+            if (this.aborted)
+                return 0;
+
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta)
+                    break;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Learns from a beta cutoff. A quiet cutoff move becomes the newest killer of its ply
+     * and gains history, while the quiet moves tried before it lose history.
+     * @param move the move that caused the cutoff
+     * @param ply the ply of the node
+     * @param depth the remaining depth of the node
+     * @param movesTried how many moves were tried at the node, including this one
+     */
+    private void recordCutoff(int move, int ply, int depth, int movesTried) {
+        this.cutoffs++;
+        if (movesTried == 1)
+            this.firstMoveCutoffs++;
+        if (Move.isCapture(move))
+            return;
+
+        int[] plyKillers = this.killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int side = this.chess.getTurn().ordinal();
+        int bonus = depth * depth;
+        this.history.update(side, move, bonus);
+        MoveList quiets = this.quietsTried[ply];
+        for (int i = 0; i < quiets.size(); i++)
+            this.history.update(side, quiets.get(i), -bonus);
+    }
+
+    /**
+     * Makes a move the head of the principal variation at a ply, followed by the line below it.
+     * @param ply the ply
+     * @param move the new best move
+     */
+    private void updatePrincipalVariation(int ply, int move) {
+        this.pvTable[ply][ply] = move;
+        for (int i = ply + 1; i < this.pvLength[ply + 1]; i++)
+            this.pvTable[ply][i] = this.pvTable[ply + 1][i];
+        this.pvLength[ply] = Math.max(ply + 1, this.pvLength[ply + 1]);
+    }
+
+    /**
+     * Aborts the search if it has used up its node or time budget or was asked to stop.
+     */
+    private void checkLimits() {
+        this.publishedNodes = this.nodes;
+        if (this.stopRequested || this.nodes >= this.maxNodes || System.nanoTime() >= this.deadline)
+            this.aborted = true;
+    }
+
+    /**
+     * Converts a mate score relative to the root into one relative to the current position,
+     * so that a stored mate stays correct wherever the position is reached again.
+     * @param score the score relative to the root
+     * @param ply the distance from the root
+     * @return the score to store
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY)
+            return score + ply;
+        if (score <= -MATE_SCORE + MAX_PLY)
+            return score - ply;
+        return score;
+    }
+
+    /**
+     * Converts a stored mate score back to one relative to the root.
+     * @param score the stored score
+     * @param ply the distance from the root
+     * @return the score relative to the root
+     */
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_SCORE - MAX_PLY)
+            return score - ply;
+        if (score <= -MATE_SCORE + MAX_PLY)
+            return score + ply;
+        return score;
+    }
+}
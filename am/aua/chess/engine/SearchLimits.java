@@ -0,0 +1,62 @@
+package am.aua.chess.engine;
+
+/**
+ * The budget of a search: a maximum depth, a maximum number of nodes and a
+ * maximum thinking time. A value of 0 means the corresponding limit is not set.
+ */
+public class SearchLimits {
+
+    /** Maximum depth in plies, or 0 for no limit. */
+    private final int depth;
+
+    /** Maximum number of nodes, or 0 for no limit. */
+    private final long nodes;
+
+    /** Maximum thinking time in milliseconds, or 0 for no limit. */
+    private final long timeMillis;
+
+    /**
+     * Constructs a search budget.
+     * @param depth the maximum depth in plies, or 0 for no limit
+     * @param nodes the maximum number of nodes, or 0 for no limit
+     * @param timeMillis the maximum thinking time in milliseconds, or 0 for no limit
+     */
+    public SearchLimits(int depth, long nodes, long timeMillis) {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+
+    /**
+     * Creates a budget limited only by depth.
+     * @param depth the maximum depth in plies
+     * @return the search limits
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * Creates a budget limited only by thinking time.
+     * @param timeMillis the maximum thinking time in milliseconds
+     * @return the search limits
+     */
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(0, 0, timeMillis);
+    }
+
+    /** @return the maximum depth in plies, or 0 for no limit */
+    public int getDepth() {
+        return depth;
+    }
+
+    /** @return the maximum number of nodes, or 0 for no limit */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** @return the maximum thinking time in milliseconds, or 0 for no limit */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -0,0 +1,13 @@
+package am.aua.chess.engine;
+
+/**
+ * Receives progress reports from a running search.
+ */
+public interface SearchListener {
+
+    /**
+     * Called each time the search completes an iteration of iterative deepening.
+     * @param result the result of the completed iteration
+     */
+    void iterationFinished(SearchResult result);
+}
@@ -0,0 +1,107 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Move;
+
+/**
+ * The outcome of one completed search iteration: the best move, its score,
+ * the principal variation and the effort spent.
+ */
+public class SearchResult {
+
+    /** The best move in the compact encoding, or Move.NONE if there is no legal move. */
+    private final int bestMove;
+
+    /** The score in centipawns from the side to move's point of view. */
+    private final int score;
+
+    /** The depth of the completed iteration. */
+    private final int depth;
+
+    /** Nodes searched and the time it took. */
+    private final long nodes;
+    private final long timeMillis;
+
+    /** The expected line of play, starting with the best move. */
+    private final int[] principalVariation;
+
+    /**
+     * Constructs a search result.
+     * @param score the score in centipawns
+     * @param depth the depth of the completed iteration
+     * @param nodes the number of nodes searched
+     * @param timeMillis the time spent in milliseconds
+     * @param principalVariation the expected line of play, starting with the best move
+     */
+    public SearchResult(int score, int depth, long nodes, long timeMillis, int[] principalVariation) {
+        this.bestMove = principalVariation.length > 0 ? principalVariation[0] : Move.NONE;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    /** @return the best move in the compact encoding, or Move.NONE */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /** @return the score in centipawns from the side to move's point of view */
+    public int getScore() {
+        return score;
+    }
+
+    /** @return the depth of the completed iteration */
+    public int getDepth() {
+        return depth;
+    }
+
+    /** @return the number of nodes searched */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /** @return the time spent in milliseconds */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /** @return the search speed in nodes per second */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+
+    /** @return the expected line of play, starting with the best move */
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    /**
+     * Checks whether the score announces a forced mate.
+     * @return true for mate scores
+     */
+    public boolean isMateScore() {
+        return Math.abs(score) >= Search.MATE_SCORE - Search.MAX_PLY;
+    }
+
+    /**
+     * Returns the number of moves until mate, negative if the side to move gets mated.
+     * @return moves to mate, only meaningful if isMateScore() is true
+     */
+    public int getMateInMoves() {
+        return score > 0 ? (Search.MATE_SCORE - score + 1) / 2 : -(Search.MATE_SCORE + score) / 2;
+    }
+
+    /**
+     * Returns a one-line summary: depth, score, nodes, speed and line.
+     * @return the string representation of the result
+     */
+    public String toString() {
+        StringBuilder line = new StringBuilder();
+        for (int move : principalVariation)
+            line.append(" ").append(Move.toString(move));
+        return "depth " + depth
+                + (isMateScore() ? ", mate in " + getMateInMoves() : ", score " + score)
+                + ", " + nodes + " nodes, " + getNodesPerSecond() + " nodes/s, line:" + line;
+    }
+}
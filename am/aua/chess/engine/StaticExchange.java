@@ -0,0 +1,87 @@
+package am.aua.chess.engine;
+
+import am.aua.chess.core.Bitboards;
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.Move;
+
+/**
+ * Static exchange evaluation (SEE): the material won or lost by a capture once
+ * both sides have recaptured on its square for as long as it pays off.
+ * The exchange is played out on attack bitboards alone, without making moves.
+ * Each side always recaptures with its least valuable attacker, and removing an
+ * attacker from the occupancy uncovers any slider standing behind it (x-rays).
+ * Each searcher thread uses its own instance, which allocates nothing per call.
+ */
+class StaticExchange {
+
+    /** Value of a king in an exchange: capturing it ends the exchange in any case. */
+    private static final int KING_VALUE = 20000;
+
+    /** gains[d] is what the side making the d-th capture has won, if the exchange stops there. */
+    private final int[] gains = new int[32];
+
+    /**
+     * Evaluates a capture by the side to move.
+     * @param chess the position
+     * @param move the capture
+     * @return the expected material gain in centipawns; negative if the capture loses material
+     */
+    int evaluate(Chess chess, int move) {
+        int from = Move.originOf(move);
+        int to = Move.destinationOf(move);
+
+        int[] gains = this.gains;
+        int depth = 0;
+        gains[0] = value(chess.getPieceType(to));
+
+        long occupied = chess.getOccupancy() ^ Bitboards.bit(from);
+        long attackers = chess.attackersTo(to, occupied) & occupied;
+        int pieceOnSquare = chess.getPieceType(from);
+        Chess.PieceColor side = chess.getTurn() == Chess.PieceColor.WHITE
+                ? Chess.PieceColor.BLACK : Chess.PieceColor.WHITE;
+
+        while (true) {
+            long ours = attackers & chess.getOccupancy(side);
+            if (ours == 0)
+                break;
+
+            // Recapture with the least valuable attacker
+            int type = Chess.PAWN;
+            long attacker = 0;
+            for (; type <= Chess.KING; type++) {
+                attacker = ours & chess.getBitboard(type, side);
+                if (attacker != 0)
+                    break;
+            }
+
+            // A king cannot recapture onto a square that is still attacked
+            if (type == Chess.KING && (attackers & ~ours) != 0)
+                break;
+
+            depth++;
+            gains[depth] = value(pieceOnSquare) - gains[depth - 1];
+            pieceOnSquare = type;
+
+            // Take the attacker off the board and look again for sliders behind it
+            occupied ^= Long.lowestOneBit(attacker);
+            attackers = chess.attackersTo(to, occupied) & occupied;
+            side = side == Chess.PieceColor.WHITE ? Chess.PieceColor.BLACK : Chess.PieceColor.WHITE;
+        }
+
+        // Either side may stop capturing when continuing would lose: resolve from the end
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
+    }
+
+    /**
+     * Returns the exchange value of a piece type.
+     * @param type the piece type (Chess.PAWN … Chess.KING)
+     * @return the value in centipawns
+     */
+    private static int value(int type) {
+        return type == Chess.KING ? KING_VALUE : Evaluator.PIECE_VALUES[type];
+    }
+}
@@ -0,0 +1,288 @@
+package am.aua.chess.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A hash table of search results, keyed by the Zobrist key of a position.
+ * Entries are 16 bytes and live outside the Java heap in direct byte buffers,
+ * so the garbage collector never has to scan them. The table is shared by all
+ * searcher threads without locks: every entry stores its key XOR-ed with its data,
+ * so an entry torn by two threads writing at once simply fails to verify and
+ * reads as a miss.
+ */
+public class TranspositionTable {
+
+    /** Bound types: the stored score is an upper bound, a lower bound, or exact. */
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    /** Returned by probe when no entry is stored for a key. */
+    public static final long MISS = 0L;
+
+    /** Size of one entry: the checked key and the packed data. */
+    private static final int ENTRY_BYTES = 16;
+
+    /** Entries per bucket; four entries fill one 64-byte cache line. */
+    private static final int BUCKET_ENTRIES = 4;
+    private static final int BUCKET_BYTES = ENTRY_BYTES * BUCKET_ENTRIES;
+
+    /** Buckets per direct buffer; a single buffer cannot be larger than 2 GB. */
+    private static final int CHUNK_BUCKETS_LOG = 24;
+    private static final long CHUNK_BUCKETS = 1L << CHUNK_BUCKETS_LOG;
+
+    /** Number of distinct search ages before they wrap around. */
+    private static final int AGE_CYCLE = 64;
+
+    /** The off-heap storage, split into chunks of at most 1 GB. */
+    private final ByteBuffer[] chunks;
+
+    /** Number of buckets in the table, always a power of two. */
+    private final long bucketCount;
+
+    /** Age of the current search, stored in every entry written during it. */
+    private volatile int age;
+
+    /** Statistics: probes, probes that found their key, stores and stores that evicted another position. */
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * Allocates a table of (at most) the given size.
+     * The size is rounded down to a power of two buckets. Large tables may need
+     * a higher {@code -XX:MaxDirectMemorySize}.
+     * @param megabytes the size of the table in megabytes (at least 1)
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1)
+            throw new IllegalArgumentException("The table must be at least 1 MB.");
+
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / BUCKET_BYTES);
+        this.bucketCount = buckets;
+
+        int chunkCount = (int) ((buckets + CHUNK_BUCKETS - 1) / CHUNK_BUCKETS);
+        this.chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long chunkBuckets = Math.min(CHUNK_BUCKETS, buckets - i * CHUNK_BUCKETS);
+            this.chunks[i] = ByteBuffer.allocateDirect((int) (chunkBuckets * BUCKET_BYTES))
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Returns the size of the table in bytes.
+     * @return the number of bytes allocated
+     */
+    public long getSizeInBytes() {
+        return this.bucketCount * BUCKET_BYTES;
+    }
+
+    /**
+     * Starts a new search. Entries written by older searches become preferred for replacement.
+     */
+    public void newSearch() {
+        this.age = (this.age + 1) % AGE_CYCLE;
+    }
+
+    /**
+     * Erases all entries and statistics.
+     */
+    public void clear() {
+        for (ByteBuffer chunk : this.chunks)
+            for (int i = 0; i < chunk.capacity(); i += Long.BYTES)
+                chunk.putLong(i, 0L);
+        this.age = 0;
+        this.probes.reset();
+        this.hits.reset();
+        this.stores.reset();
+        this.collisions.reset();
+    }
+
+    /**
+     * Looks up a position.
+     * @param key the Zobrist key of the position
+     * @return the packed entry data, or MISS; decode it with move, score, depth and bound
+     */
+    public long probe(long key) {
+        ByteBuffer chunk = chunkOf(key);
+        int offset = offsetOf(key);
+        this.probes.increment();
+
+        for (int i = 0; i < BUCKET_ENTRIES; i++, offset += ENTRY_BYTES) {
+            long data = chunk.getLong(offset + Long.BYTES);
+            if (data != MISS && (chunk.getLong(offset) ^ data) == key) {
+                this.hits.increment();
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     * An existing entry for the same position is overwritten. Otherwise the entry
+     * that is shallowest and oldest in the bucket is replaced.
+     * @param key the Zobrist key of the position
+     * @param move the best move found (0 if none); kept from the old entry if 0
+     * @param score the score, between -32768 and 32767
+     * @param depth the depth searched, between 0 and 255
+     * @param bound BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        ByteBuffer chunk = chunkOf(key);
+        int bucket = offsetOf(key);
+        int currentAge = this.age;
+
+        int victim = bucket;
+        int victimValue = Integer.MAX_VALUE;
+        long victimData = MISS;
+        for (int i = 0, offset = bucket; i < BUCKET_ENTRIES; i++, offset += ENTRY_BYTES) {
+            long data = chunk.getLong(offset + Long.BYTES);
+
+            // Same position: overwrite, but keep its move if we have none
+            if (data != MISS && (chunk.getLong(offset) ^ data) == key) {
+                if (move == 0)
+                    move = move(data);
+                victim = offset;
+                victimData = MISS;
+                break;
+            }
+
+            // Prefer empty entries, then shallow ones, then ones from older searches
+            int value = data == MISS ? Integer.MIN_VALUE
+                    : depth(data) - 8 * ((currentAge - age(data) + AGE_CYCLE) % AGE_CYCLE);
+            if (value < victimValue) {
+                victim = offset;
+                victimValue = value;
+                victimData = data;
+            }
+        }
+
+        if (victimData != MISS)
+            this.collisions.increment();
+        this.stores.increment();
+
+        long data = pack(move, score, depth, bound, currentAge);
+        chunk.putLong(victim, key ^ data);
+        chunk.putLong(victim + Long.BYTES, data);
+    }
+
+    /**
+     * Estimates how full the table is, by sampling the first entries.
+     * @return the per-mille of sampled entries written by the current search
+     */
+    public int hashfull() {
+        int used = 0;
+        int sampled = (int) Math.min(1000, this.bucketCount * BUCKET_ENTRIES);
+        for (int i = 0; i < sampled; i++) {
+            long data = this.chunks[0].getLong(i * ENTRY_BYTES + Long.BYTES);
+            if (data != MISS && age(data) == this.age)
+                used++;
+        }
+        return used * 1000 / sampled;
+    }
+
+    /** @return the number of probes since the last clear */
+    public long getProbes() {
+        return this.probes.sum();
+    }
+
+    /** @return the number of probes that found their position */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /** @return the number of stores since the last clear */
+    public long getStores() {
+        return this.stores.sum();
+    }
+
+    /** @return the number of stores that evicted a different position */
+    public long getCollisions() {
+        return this.collisions.sum();
+    }
+
+    /**
+     * Extracts the move from packed entry data.
+     * @param data the data returned by probe
+     * @return the stored move
+     */
+    public static int move(long data) {
+        return (int) data;
+    }
+
+    /**
+     * Extracts the score from packed entry data.
+     * @param data the data returned by probe
+     * @return the stored score
+     */
+    public static int score(long data) {
+        return (short) (data >>> 32);
+    }
+
+    /**
+     * Extracts the depth from packed entry data.
+     * @param data the data returned by probe
+     * @return the stored depth
+     */
+    public static int depth(long data) {
+        return (int) (data >>> 48) & 0xFF;
+    }
+
+    /**
+     * Extracts the bound type from packed entry data.
+     * @param data the data returned by probe
+     * @return BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+     */
+    public static int bound(long data) {
+        return (int) (data >>> 56) & 0x3;
+    }
+
+    /**
+     * Extracts the search age from packed entry data.
+     * @param data the packed data
+     * @return the age of the search that wrote the entry
+     */
+    private static int age(long data) {
+        return (int) (data >>> 58);
+    }
+
+    /**
+     * Packs the fields of an entry into 64 bits: move (32), score (16), depth (8), bound (2), age (6).
+     * @param move the best move
+     * @param score the score
+     * @param depth the depth searched
+     * @param bound the bound type
+     * @param age the search age
+     * @return the packed data; never MISS, because the bound is never 0
+     */
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & 0xFFFFFFFFL)
+                | (score & 0xFFFFL) << 32
+                | (long) (depth & 0xFF) << 48
+                | (long) bound << 56
+                | (long) age << 58;
+    }
+
+    /**
+     * Returns the buffer holding the bucket of a key.
+     * @param key the Zobrist key
+     * @return the chunk
+     */
+    private ByteBuffer chunkOf(long key) {
+        return this.chunks[(int) ((key & (this.bucketCount - 1)) >>> CHUNK_BUCKETS_LOG)];
+    }
+
+    /**
+     * Returns the byte offset of the bucket of a key within its chunk.
+     * @param key the Zobrist key
+     * @return the offset
+     */
+    private int offsetOf(long key) {
+        return (int) (key & (this.bucketCount - 1) & (CHUNK_BUCKETS - 1)) * BUCKET_BYTES;
+    }
+}
@@ -48,6 +48,22 @@ public final class Puzzle implements Comparable<Puzzle> {
         }
     }
 
+    /**
+     * Constructs a Puzzle from parts that are already known to be valid,
+     * such as those decoded from a puzzle file.
+     *
+     * @param arrangement the board arrangement string
+     * @param turn        the color of the player to move
+     * @param difficulty  the puzzle's difficulty
+     * @param description the description or hint for the puzzle
+     */
+    Puzzle(String arrangement, Chess.PieceColor turn, Difficulty difficulty, String description) {
+        this.arrangement = arrangement;
+        this.turn = turn;
+        this.difficulty = difficulty;
+        this.description = description;
+    }
+
     /**
      * Copy constructor for Puzzle.
      * @param other the Puzzle to copy
@@ -88,6 +104,15 @@ public final class Puzzle implements Comparable<Puzzle> {
         return false;
     }
 
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}: it depends on
+     * the arrangement, the difficulty and the turn, but not on the description.
+     * @return the hash code
+     */
+    public int hashCode() {
+        return (31 * this.arrangement.hashCode() + this.difficulty.ordinal()) * 31 + this.turn.ordinal();
+    }
+
     /** @return the puzzle's description */
     public String getDescription() {
         return description;
@@ -2,24 +2,42 @@ package am.aua.chess.puzzles;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Scanner;
 
 /**
  * Manages a collection of chess puzzles.
  * Supports loading from and saving to a file, adding puzzles from external sources,
  * and accessing puzzles by index.
+ * The puzzles are saved in the binary format of {@link PuzzleFile}, which is mapped
+ * into memory when loaded, so that puzzles are only decoded when asked for. They are
+ * copied into memory only once the collection is changed. A database that has only
+ * been saved as text so far is read from the text file.
  */
 public class PuzzleDatabase {
 
     /** Path to the file where puzzles are stored. */
     public static final String databasePath = "database.txt";
 
-    /** List of all puzzles stored in memory. */
+    /** Path to the binary file where puzzles are stored; preferred over the text file when present. */
+    public static final String binaryDatabasePath = "database.bin";
+
+    /** List of all puzzles stored in memory; null while they are read from the mapped file. */
     private ArrayList<Puzzle> puzzles;
 
+    /** The puzzles of the list, for finding duplicates in constant time; null while the list is. */
+    private HashSet<Puzzle> index;
+
+    /** The mapped binary database; null if the puzzles were read from text. */
+    private PuzzleFile file;
+
     /**
      * Constructs a new PuzzleDatabase and loads puzzles from the default file.
      */
@@ -28,21 +46,38 @@ public class PuzzleDatabase {
     }
 
     /**
-     * Loads puzzles from the database file into memory.
-     * Ensures no duplicates and sorts puzzles by difficulty, turn, and arrangement.
+     * Loads puzzles from the database file, binary or text, whichever was saved last.
+     * The binary file is only mapped, since it was saved sorted and without duplicates.
+     * Puzzles from the text file are read into memory; duplicates are dropped and they are
+     * sorted by difficulty, turn, and arrangement.
      * Exits the program if the file is missing or a puzzle is malformed.
      */
     public void load() {
+        Path binaryPath = Paths.get(binaryDatabasePath);
+        if (Files.exists(binaryPath) && !isNewer(Paths.get(databasePath), binaryPath)) {
+            try {
+                file = new PuzzleFile(binaryPath);
+                puzzles = null;
+                index = null;
+            } catch (IOException e) {
+                System.out.println("Cannot open the database file.");
+                System.exit(0);
+            }
+            return;
+        }
+
+        file = null;
         try {
             Scanner sc = new Scanner(new FileInputStream(databasePath));
             int puzzleCount = sc.nextInt(); // Read the number of puzzles
             puzzles = new ArrayList<>(puzzleCount);
+            index = new HashSet<>();
             sc.nextLine(); // Move to next line
 
             // Read each puzzle's details and description
             for (int i = 0; i < puzzleCount; i++) {
                 Puzzle current = new Puzzle(sc.nextLine(), sc.nextLine());
-                if (!contains(current))
+                if (index.add(current))
                     puzzles.add(current);
             }
 
@@ -59,10 +94,29 @@ public class PuzzleDatabase {
     }
 
     /**
-     * Saves the current list of puzzles to the database file.
-     * Exits the program if the file cannot be written.
+     * Saves the current list of puzzles to the binary database file.
+     * Nothing is written if the puzzles are still those of the mapped file.
+     * If the binary file cannot be written or replaced, for instance because the system
+     * does not allow replacing the mapped file, the puzzles are saved as text instead,
+     * and that file is loaded next time since it is newer.
      */
     public void save() {
+        if (puzzles == null)
+            return; // Unchanged since it was loaded
+
+        try {
+            PuzzleFile.write(Paths.get(binaryDatabasePath), puzzles);
+        } catch (IOException | MalformedPuzzleException e) {
+            System.out.println("Cannot save the binary database file (" + e.getMessage() + "), saving as text.");
+            saveText();
+        }
+    }
+
+    /**
+     * Saves the current list of puzzles to the text database file.
+     * Exits the program if the file cannot be written.
+     */
+    private void saveText() {
         try {
             PrintWriter pw = new PrintWriter(databasePath);
             pw.println(puzzles.size()); // First line = number of puzzles
@@ -77,20 +131,23 @@ public class PuzzleDatabase {
 
     /**
      * Loads puzzles from an external file and adds them to the database.
-     * Ensures no duplicates and sorts the resulting list.
+     * Ensures no duplicates, and merges the new puzzles into the sorted list
+     * instead of sorting it all again.
      * Each puzzle must span two lines: details and description.
      *
      * @param filename the path to the external file
      */
     public void addPuzzlesFromFile(String filename) {
+        readIntoMemory();
         try {
             Scanner sc = new Scanner(new FileInputStream(filename));
+            ArrayList<Puzzle> batch = new ArrayList<>();
             while (sc.hasNextLine()) {
                 Puzzle current = new Puzzle(sc.nextLine(), sc.nextLine());
-                if (!contains(current))
-                    puzzles.add(current);
+                if (index.add(current))
+                    batch.add(current);
             }
-            Collections.sort(puzzles); // Maintain sorted order
+            merge(batch); // Maintain sorted order
             sc.close();
 
         } catch (FileNotFoundException e) {
@@ -107,7 +164,7 @@ public class PuzzleDatabase {
      * @return the total number of stored puzzles
      */
     public int getSize() {
-        return puzzles.size();
+        return puzzles != null ? puzzles.size() : file.size();
     }
 
     /**
@@ -116,18 +173,59 @@ public class PuzzleDatabase {
      * @return the puzzle at index {@code i}
      */
     public Puzzle getPuzzle(int i) {
-        return puzzles.get(i);
+        return puzzles != null ? puzzles.get(i) : file.get(i); // Decoded on demand from the mapped file
+    }
+
+    /**
+     * Checks whether a file exists and was modified after another one.
+     * @param path the file
+     * @param other the file to compare with, which exists
+     * @return true if the file is newer
+     */
+    private static boolean isNewer(Path path, Path other) {
+        try {
+            return Files.exists(path)
+                    && Files.getLastModifiedTime(path).compareTo(Files.getLastModifiedTime(other)) > 0;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     /**
-     * Checks if a given puzzle already exists in the database.
-     * @param p the puzzle to check
-     * @return true if the puzzle exists, false otherwise
+     * Decodes all puzzles of the mapped file into the in-memory list, before it is changed.
      */
-    private boolean contains(Puzzle p) {
-        for (int i = 0; i < puzzles.size(); i++)
-            if (puzzles.get(i).equals(p))
-                return true;
-        return false;
+    private void readIntoMemory() {
+        if (puzzles != null)
+            return;
+
+        puzzles = new ArrayList<>(file.size());
+        index = new HashSet<>();
+        for (int i = 0; i < file.size(); i++) {
+            puzzles.add(file.get(i));
+            index.add(puzzles.get(i));
+        }
+    }
+
+    /**
+     * Merges new puzzles into the sorted list. Only the batch is sorted; the list is then
+     * merged with it in one pass, which keeps large imports linear in the size of the list.
+     * @param batch the new puzzles, none of which is in the list yet
+     */
+    private void merge(ArrayList<Puzzle> batch) {
+        if (batch.isEmpty())
+            return;
+
+        Collections.sort(batch);
+        ArrayList<Puzzle> merged = new ArrayList<>(puzzles.size() + batch.size());
+        int i = 0, j = 0;
+        while (i < puzzles.size() && j < batch.size()) {
+            if (puzzles.get(i).compareTo(batch.get(j)) <= 0)
+                merged.add(puzzles.get(i++));
+            else
+                merged.add(batch.get(j++));
+        }
+        merged.addAll(puzzles.subList(i, puzzles.size()));
+        merged.addAll(batch.subList(j, batch.size()));
+        puzzles = merged;
     }
 }
@@ -0,0 +1,232 @@
+package am.aua.chess.puzzles;
+
+import am.aua.chess.core.Chess;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A read-only puzzle collection in a compact binary file, mapped into memory.
+ * Opening a file only maps it, whatever its size, and a puzzle is decoded only when
+ * it is asked for, so neither the startup time nor the heap grows with the collection.
+ * <p>
+ * The file starts with a 16-byte header: the magic number, the format version,
+ * the number of puzzles and a reserved word. Fixed-size records follow, one per
+ * puzzle, and then the string heap holding all descriptions in UTF-8.
+ * Each record has 40 bytes:
+ * <ul>
+ *     <li>the arrangement, two squares per byte (the first square of a pair in the high nibble),
+ *     each a 4-bit code: 0 for an empty square, 1–12 for the pieces "PNBRQKpnbrqk",
+ *     13 and 14 for the moved rooks "S" and "s";</li>
+ *     <li>an int of flags: the turn, the difficulty and whether each king has moved,
+ *     which turns its "K" or "k" into "L" or "l";</li>
+ *     <li>an int with the offset of the description within the heap. A description
+ *     ends where the next one starts, and the last one at the end of the file.</li>
+ * </ul>
+ * A mapping cannot exceed 2 GB, which is about 50 million puzzles with short descriptions.
+ */
+final class PuzzleFile {
+
+    /** "CHPZ", marking puzzle files. */
+    private static final int MAGIC = 0x4348505A;
+
+    /** The version of the format described above. */
+    private static final int VERSION = 1;
+
+    /** Sizes of the header and of a record, in bytes. */
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 40;
+
+    /** Bytes of a record holding the arrangement. */
+    private static final int ARRANGEMENT_SIZE = 32;
+
+    /** The characters of the square codes, indexed by code. */
+    private static final String CODES = "-PNBRQKpnbrqkSs";
+
+    /** Flag bits: the turn, the difficulty (two bits) and the moved-flags of the kings. */
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int DIFFICULTY_SHIFT = 1;
+    private static final int DIFFICULTY_MASK = 3 << DIFFICULTY_SHIFT;
+    private static final int WHITE_KING_MOVED = 1 << 3;
+    private static final int BLACK_KING_MOVED = 1 << 4;
+
+    /** Shared values of the enums, so decoding does not copy them. */
+    private static final Puzzle.Difficulty[] DIFFICULTIES = Puzzle.Difficulty.values();
+
+    /** The mapped file. */
+    private final MappedByteBuffer buffer;
+
+    /** The number of puzzles. */
+    private final int size;
+
+    /** Where the string heap starts in the file. */
+    private final int heapStart;
+
+    /**
+     * Maps a puzzle file into memory.
+     * @param path the file
+     * @throws IOException if the file cannot be read or is not a puzzle file
+     */
+    PuzzleFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (this.buffer.capacity() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC
+                || this.buffer.getInt(4) != VERSION)
+            throw new IOException("Not a puzzle file: " + path);
+        this.size = this.buffer.getInt(8);
+        long heapStart = HEADER_SIZE + (long) this.size * RECORD_SIZE;
+        if (this.size < 0 || heapStart > this.buffer.capacity())
+            throw new IOException("Truncated puzzle file: " + path);
+        this.heapStart = (int) heapStart;
+    }
+
+    /**
+     * Returns the number of puzzles in the file.
+     * @return the number of puzzles
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Decodes the puzzle at an index.
+     * @param i the index of the puzzle
+     * @return a new Puzzle holding the decoded data
+     * @throws IndexOutOfBoundsException if there is no puzzle at the index
+     */
+    Puzzle get(int i) {
+        if (i < 0 || i >= this.size)
+            throw new IndexOutOfBoundsException("Puzzle " + i + " of " + this.size);
+
+        int record = HEADER_SIZE + i * RECORD_SIZE;
+        int flags = this.buffer.getInt(record + ARRANGEMENT_SIZE);
+
+        // Unpack the arrangement, two squares per byte
+        char[] arrangement = new char[Chess.BOARD_RANKS * Chess.BOARD_FILES];
+        for (int square = 0; square < arrangement.length; square += 2) {
+            byte pair = this.buffer.get(record + square / 2);
+            arrangement[square] = decodeSquare((pair >>> 4) & 15, flags);
+            arrangement[square + 1] = decodeSquare(pair & 15, flags);
+        }
+
+        // The description runs up to the next one, or to the end of the file
+        int start = this.heapStart + this.buffer.getInt(record + ARRANGEMENT_SIZE + 4);
+        int end = i + 1 < this.size
+                ? this.heapStart + this.buffer.getInt(record + RECORD_SIZE + ARRANGEMENT_SIZE + 4)
+                : this.buffer.capacity();
+        byte[] description = new byte[end - start];
+        this.buffer.get(start, description);
+
+        return new Puzzle(new String(arrangement),
+                (flags & BLACK_TO_MOVE) != 0 ? Chess.PieceColor.BLACK : Chess.PieceColor.WHITE,
+                DIFFICULTIES[(flags & DIFFICULTY_MASK) >>> DIFFICULTY_SHIFT],
+                new String(description, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes puzzles into a new puzzle file. The file is written next to its final
+     * place and then moved there, so a file that is mapped by a reader is replaced
+     * rather than changed under it. Some systems (Windows) refuse to replace a file
+     * that is mapped; the move then fails, the new file is deleted and the old one kept.
+     * @param path the file
+     * @param puzzles the puzzles, in the order they are to be stored
+     * @throws IOException if the file cannot be written or replaced
+     * @throws MalformedPuzzleException if an arrangement holds a character the format cannot store
+     */
+    static void write(Path path, List<Puzzle> puzzles) throws IOException, MalformedPuzzleException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        byte[][] descriptions = new byte[puzzles.size()][];
+        for (int i = 0; i < puzzles.size(); i++)
+            descriptions[i] = puzzles.get(i).getDescription().getBytes(StandardCharsets.UTF_8);
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(puzzles.size());
+                out.writeInt(0);
+
+                int offset = 0;
+                for (int i = 0; i < puzzles.size(); i++) {
+                    writeRecord(out, puzzles.get(i), offset);
+                    offset += descriptions[i].length;
+                }
+                for (byte[] description : descriptions)
+                    out.write(description);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | MalformedPuzzleException e) {
+            Files.deleteIfExists(temporary); // Leave no half-written file behind
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the record of one puzzle.
+     * @param out the stream
+     * @param puzzle the puzzle
+     * @param descriptionOffset where its description starts within the heap
+     * @throws IOException if the stream fails
+     * @throws MalformedPuzzleException if the arrangement holds a character the format cannot store
+     */
+    private static void writeRecord(DataOutputStream out, Puzzle puzzle, int descriptionOffset)
+            throws IOException, MalformedPuzzleException {
+        String arrangement = puzzle.getArrangement();
+        int flags = puzzle.getTurn() == Chess.PieceColor.BLACK ? BLACK_TO_MOVE : 0;
+        flags |= puzzle.getDifficulty().ordinal() << DIFFICULTY_SHIFT;
+        if (arrangement.indexOf('L') >= 0)
+            flags |= WHITE_KING_MOVED;
+        if (arrangement.indexOf('l') >= 0)
+            flags |= BLACK_KING_MOVED;
+
+        for (int square = 0; square < ARRANGEMENT_SIZE * 2; square += 2)
+            out.write(encodeSquare(arrangement.charAt(square)) << 4 | encodeSquare(arrangement.charAt(square + 1)));
+        out.writeInt(flags);
+        out.writeInt(descriptionOffset);
+    }
+
+    /**
+     * Returns the 4-bit code of an arrangement character. Moved kings share the code
+     * of the king; their moved-flag is kept in the flags.
+     * @param c the character
+     * @return the code
+     * @throws MalformedPuzzleException if the character is not a piece or '-'
+     */
+    private static int encodeSquare(char c) throws MalformedPuzzleException {
+        if (c == 'L')
+            c = 'K';
+        else if (c == 'l')
+            c = 'k';
+        int code = CODES.indexOf(c);
+        if (code < 0)
+            throw new MalformedPuzzleException("Unknown square '" + c + "' in a puzzle arrangement.");
+        return code;
+    }
+
+    /**
+     * Returns the arrangement character of a 4-bit code.
+     * @param code the code
+     * @param flags the flags of the record, for the moved-flags of the kings
+     * @return the character
+     */
+    private static char decodeSquare(int code, int flags) {
+        char c = code < CODES.length() ? CODES.charAt(code) : '-';
+        if (c == 'K' && (flags & WHITE_KING_MOVED) != 0)
+            return 'L';
+        if (c == 'k' && (flags & BLACK_KING_MOVED) != 0)
+            return 'l';
+        return c;
+    }
+}
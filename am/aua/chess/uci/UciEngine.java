@@ -0,0 +1,537 @@
+package am.aua.chess.uci;
+
+import am.aua.chess.core.Bitboards;
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.IllegalArrangementException;
+import am.aua.chess.core.Move;
+import am.aua.chess.core.Position;
+import am.aua.chess.engine.ParallelSearch;
+import am.aua.chess.engine.SearchLimits;
+import am.aua.chess.engine.SearchResult;
+import am.aua.chess.engine.TranspositionTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.StringTokenizer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the engine headless over the UCI protocol, so that chess GUIs and
+ * tournament managers can drive it through standard input and output.
+ * Commands are read on the calling thread while searches run on a worker thread,
+ * so "stop" and "isready" are answered at once. When a "position" command only
+ * adds moves to (or takes moves back from) the previous one, the existing position
+ * is updated in place instead of being rebuilt from scratch.
+ * Under these rules there is no castling, en passant or promotion; castling rights
+ * in a FEN only decide whether kings and rooks count as moved.
+ */
+public class UciEngine {
+
+    /** Default and largest sizes of the transposition table, in megabytes. */
+    private static final int DEFAULT_HASH_MEGABYTES = 64;
+    private static final int MAX_HASH_MEGABYTES = 65536;
+
+    /** Largest number of search threads. */
+    private static final int MAX_THREADS = 256;
+
+    /** Time kept in reserve for communication with the GUI, in milliseconds. */
+    private static final long MOVE_OVERHEAD_MILLIS = 20;
+
+    /** Number of moves the remaining time is spread over when the GUI does not say. */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    /** The piece letters a FEN board may contain. */
+    private static final String FEN_PIECES = "PNBRQKpnbrqk";
+
+    /** The standard starting position. */
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /** Where commands come from and responses go. */
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    /** Runs the searches, one at a time; the timer stops pondering searches after ponderhit. */
+    private final ExecutorService worker;
+    private final ScheduledExecutorService timer;
+
+    /** The search and its table; replaced when the Hash or Threads option changes. */
+    private TranspositionTable table;
+    private ParallelSearch search;
+    private int threads = 1;
+
+    /** The current position, and the "position" command it was built from. */
+    private Chess position;
+    private String positionBase;
+    private final ArrayList<String> positionMoves = new ArrayList<>();
+
+    /** The running search, or null. */
+    private Future<?> searching;
+
+    /**
+     * Released when a search that must not end on its own (infinite or pondering)
+     * may report its best move: on "stop" or "ponderhit".
+     */
+    private volatile CountDownLatch released = new CountDownLatch(0);
+
+    /** Time the current pondering search may use once the opponent plays the expected move; 0 if untimed. */
+    private long ponderBudgetMillis;
+
+    /** The pending stop of a pondering search after ponderhit, or null. */
+    private ScheduledFuture<?> scheduledStop;
+
+    /**
+     * Constructs a UCI engine that talks over the given streams.
+     * @param in the stream commands are read from
+     * @param out the stream responses are written to
+     */
+    public UciEngine(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in));
+        this.out = out;
+        this.worker = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "uci-search"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "uci-timer"));
+        this.table = new TranspositionTable(DEFAULT_HASH_MEGABYTES);
+        this.search = newSearch();
+        setPosition("startpos", new ArrayList<>());
+    }
+
+    /**
+     * Reads and answers commands until "quit" or the end of the input.
+     */
+    public void run() {
+        try {
+            String line;
+            while ((line = this.in.readLine()) != null)
+                if (!handle(line))
+                    break;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        stop();
+        waitForSearch();
+    }
+
+    /**
+     * Answers one command.
+     * @param line the command line
+     * @return false if the engine should quit
+     */
+    private boolean handle(String line) {
+        StringTokenizer tokens = new StringTokenizer(line);
+        if (!tokens.hasMoreTokens())
+            return true;
+
+        switch (tokens.nextToken()) {
+            case "uci":
+                send("id name AUA Chess");
+                send("id author AUA Chess authors");
+                send("option name Hash type spin default " + DEFAULT_HASH_MEGABYTES + " min 1 max " + MAX_HASH_MEGABYTES);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name Ponder type check default false");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "ucinewgame":
+                stopAndWait();
+                this.table.clear();
+                break;
+            case "setoption":
+                stopAndWait();
+                setOption(tokens);
+                break;
+            case "position":
+                stopAndWait();
+                position(tokens);
+                break;
+            case "go":
+                stopAndWait();
+                go(tokens);
+                break;
+            case "stop":
+                stop();
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "quit":
+                return false;
+            default:
+                break; // Unknown commands are ignored, as the protocol asks
+        }
+        return true;
+    }
+
+    /**
+     * Handles "setoption name &lt;name&gt; value &lt;value&gt;" for the Hash and Threads options.
+     * @param tokens the words after "setoption"
+     */
+    private void setOption(StringTokenizer tokens) {
+        String name = null, value = null;
+        while (tokens.hasMoreTokens()) {
+            String token = tokens.nextToken();
+            if (token.equals("name") && tokens.hasMoreTokens())
+                name = tokens.nextToken();
+            else if (token.equals("value") && tokens.hasMoreTokens())
+                value = tokens.nextToken();
+        }
+        if (name == null || value == null)
+            return;
+
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                int megabytes = Math.max(1, Math.min(MAX_HASH_MEGABYTES, Integer.parseInt(value)));
+                this.table = new TranspositionTable(megabytes);
+                this.search.shutdown();
+                this.search = newSearch();
+            } else if (name.equalsIgnoreCase("Threads")) {
+                this.threads = Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value)));
+                this.search.shutdown();
+                this.search = newSearch();
+            }
+        } catch (NumberFormatException e) {
+            send("info string invalid value " + value + " for option " + name);
+        }
+    }
+
+    /**
+     * Handles "position [startpos | fen &lt;fen&gt;] [moves &lt;move&gt; …]".
+     * @param tokens the words after "position"
+     */
+    private void position(StringTokenizer tokens) {
+        StringBuilder base = new StringBuilder();
+        ArrayList<String> moves = new ArrayList<>();
+        boolean inMoves = false;
+        while (tokens.hasMoreTokens()) {
+            String token = tokens.nextToken();
+            if (inMoves)
+                moves.add(token);
+            else if (token.equals("moves"))
+                inMoves = true;
+            else
+                base.append(base.length() == 0 ? "" : " ").append(token);
+        }
+        setPosition(base.toString(), moves);
+    }
+
+    /**
+     * Sets up a position, reusing the current one when only moves were added or taken back.
+     * @param base "startpos" or "fen" followed by the FEN fields
+     * @param moves the moves played from the base position, in UCI notation
+     */
+    private void setPosition(String base, ArrayList<String> moves) {
+        if (!base.equals(this.positionBase)) {
+            Chess chess = parseBase(base);
+            if (chess == null)
+                return;
+            this.position = chess;
+            this.positionBase = base;
+            this.positionMoves.clear();
+        }
+
+        // Keep the moves both lines share, take back the rest and play the new ones
+        int shared = 0;
+        while (shared < moves.size() && shared < this.positionMoves.size()
+                && moves.get(shared).equals(this.positionMoves.get(shared)))
+            shared++;
+        while (this.positionMoves.size() > shared) {
+            this.position.unmakeMove();
+            this.positionMoves.remove(this.positionMoves.size() - 1);
+        }
+        for (int i = shared; i < moves.size(); i++) {
+            int move = parseMove(moves.get(i));
+            if (move == Move.NONE) {
+                send("info string illegal move " + moves.get(i));
+                return;
+            }
+            this.position.makeMove(move);
+            this.positionMoves.add(moves.get(i));
+        }
+    }
+
+    /**
+     * Builds the base position of a "position" command.
+     * @param base "startpos" or "fen" followed by the FEN fields
+     * @return the position, or null if it is invalid
+     */
+    private Chess parseBase(String base) {
+        String fen = base.equals("startpos") ? START_FEN : base.startsWith("fen ") ? base.substring(4) : null;
+        try {
+            if (fen != null)
+                return fromFen(fen);
+        } catch (IllegalArrangementException | IllegalArgumentException e) {
+            // Reported below
+        }
+        send("info string invalid position " + base);
+        return null;
+    }
+
+    /**
+     * Converts a FEN string into a position. Castling rights decide whether kings and
+     * rooks count as moved; the en passant square and the move counters are not used.
+     * @param fen the FEN string
+     * @return the position
+     * @throws IllegalArrangementException if the pieces do not form a valid arrangement
+     */
+    static Chess fromFen(String fen) throws IllegalArrangementException {
+        String[] fields = fen.trim().split(" +");
+        String castling = fields.length > 2 ? fields[2] : "-";
+
+        // Every rank must describe exactly 8 squares, and only with pieces and digits
+        String[] ranks = fields[0].split("/", -1);
+        if (ranks.length != Chess.BOARD_RANKS)
+            throw new IllegalArrangementException("A FEN board must have 8 ranks");
+        char[] arrangement = new char[Chess.BOARD_RANKS * Chess.BOARD_FILES];
+        int square = 0;
+        for (int rank = 0; rank < Chess.BOARD_RANKS; rank++) {
+            int end = square + Chess.BOARD_FILES;
+            for (int i = 0; i < ranks[rank].length(); i++) {
+                char c = ranks[rank].charAt(i);
+                if (c >= '1' && c <= '8' && square + (c - '0') <= end) {
+                    for (int n = 0; n < c - '0'; n++)
+                        arrangement[square++] = '-';
+                } else if (FEN_PIECES.indexOf(c) >= 0 && square < end) {
+                    arrangement[square++] = c;
+                } else {
+                    throw new IllegalArrangementException("Invalid FEN rank: " + ranks[rank]);
+                }
+            }
+            if (square != end)
+                throw new IllegalArrangementException("Invalid FEN rank: " + ranks[rank]);
+        }
+
+        // A king without castling rights has moved, and so has a rook that cannot castle
+        for (int i = 0; i < arrangement.length; i++) {
+            char c = arrangement[i];
+            if (c == 'K' && castling.indexOf('K') < 0 && castling.indexOf('Q') < 0)
+                arrangement[i] = 'L';
+            else if (c == 'k' && castling.indexOf('k') < 0 && castling.indexOf('q') < 0)
+                arrangement[i] = 'l';
+            else if (c == 'R' && !(i == 63 && castling.indexOf('K') >= 0) && !(i == 56 && castling.indexOf('Q') >= 0))
+                arrangement[i] = 'S';
+            else if (c == 'r' && !(i == 7 && castling.indexOf('k') >= 0) && !(i == 0 && castling.indexOf('q') >= 0))
+                arrangement[i] = 's';
+        }
+
+        Chess.PieceColor turn = fields.length > 1 && fields[1].equals("b") ? Chess.PieceColor.BLACK : Chess.PieceColor.WHITE;
+        return new Chess(new String(arrangement), turn);
+    }
+
+    /**
+     * Converts a move in UCI notation ("e2e4") into an encoded legal move of the current position.
+     * A promotion suffix is ignored, since pawns do not promote under these rules.
+     * @param text the move
+     * @return the encoded move, or Move.NONE if it is not legal
+     */
+    private int parseMove(String text) {
+        if (text.length() < 4)
+            return Move.NONE;
+        Position from = Position.generateFromString(text.substring(0, 2));
+        Position to = Position.generateFromString(text.substring(2, 4));
+        if (from == null || to == null)
+            return Move.NONE;
+
+        Chess.PieceColor opponent = this.position.getTurn() == Chess.PieceColor.WHITE
+                ? Chess.PieceColor.BLACK : Chess.PieceColor.WHITE;
+        boolean capture = (this.position.getOccupancy(opponent) & Bitboards.bit(to.getSquare())) != 0;
+        int move = Move.encode(from.getSquare(), to.getSquare(), capture ? Move.CAPTURE : 0);
+        return this.position.isPseudoLegal(move) && this.position.isLegal(move) ? move : Move.NONE;
+    }
+
+    /**
+     * Handles "go" with depth, nodes, movetime, wtime, btime, winc, binc, movestogo, infinite and ponder.
+     * @param tokens the words after "go"
+     */
+    private void go(StringTokenizer tokens) {
+        int depth = 0, movesToGo = DEFAULT_MOVES_TO_GO;
+        long nodes = 0, moveTime = 0, whiteTime = 0, blackTime = 0, whiteIncrement = 0, blackIncrement = 0;
+        boolean infinite = false, ponder = false;
+        try {
+            while (tokens.hasMoreTokens()) {
+                switch (tokens.nextToken()) {
+                    case "depth": depth = Integer.parseInt(tokens.nextToken()); break;
+                    case "nodes": nodes = Long.parseLong(tokens.nextToken()); break;
+                    case "movetime": moveTime = Long.parseLong(tokens.nextToken()); break;
+                    case "wtime": whiteTime = Long.parseLong(tokens.nextToken()); break;
+                    case "btime": blackTime = Long.parseLong(tokens.nextToken()); break;
+                    case "winc": whiteIncrement = Long.parseLong(tokens.nextToken()); break;
+                    case "binc": blackIncrement = Long.parseLong(tokens.nextToken()); break;
+                    case "movestogo": movesToGo = Math.max(1, Integer.parseInt(tokens.nextToken())); break;
+                    case "infinite": infinite = true; break;
+                    case "ponder": ponder = true; break;
+                    default: break;
+                }
+            }
+        } catch (RuntimeException e) {
+            send("info string invalid go command");
+        }
+
+        // Spend a share of the remaining time plus most of the increment, keeping a reserve
+        boolean white = this.position.getTurn() == Chess.PieceColor.WHITE;
+        long time = white ? whiteTime : blackTime;
+        long increment = white ? whiteIncrement : blackIncrement;
+        long budget = 0;
+        if (moveTime > 0)
+            budget = Math.max(1, moveTime - MOVE_OVERHEAD_MILLIS);
+        else if (time > 0)
+            budget = Math.max(1, Math.min(time - MOVE_OVERHEAD_MILLIS, time / movesToGo + increment * 3 / 4));
+
+        // Infinite and pondering searches run untimed and report only once released
+        boolean untimed = infinite || ponder;
+        SearchLimits limits = new SearchLimits(depth, nodes, untimed ? 0 : budget);
+        CountDownLatch release = new CountDownLatch(untimed ? 1 : 0);
+        this.released = release;
+        this.ponderBudgetMillis = ponder ? budget : 0;
+
+        // Clear old stop requests here, so that a "stop" arriving before the worker starts still counts
+        Chess root = this.position.clone();
+        ParallelSearch current = this.search;
+        current.clearStop();
+        this.searching = this.worker.submit(() -> {
+            SearchResult result = current.search(root, limits);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sendBestMove(result);
+        });
+    }
+
+    /**
+     * Handles "ponderhit": the opponent played the expected move, so the pondering
+     * search continues as a normal one with the time budget of its "go" command.
+     */
+    private void ponderHit() {
+        if (this.ponderBudgetMillis > 0) {
+            ParallelSearch current = this.search;
+            this.scheduledStop = this.timer.schedule(current::stop, this.ponderBudgetMillis, TimeUnit.MILLISECONDS);
+        }
+        this.released.countDown();
+    }
+
+    /**
+     * Stops the running search, which then reports its best move.
+     */
+    private void stop() {
+        this.released.countDown();
+        this.search.stop();
+    }
+
+    /**
+     * Stops the running search, if any, and waits until it has reported its best move.
+     */
+    private void stopAndWait() {
+        if (this.searching != null && !this.searching.isDone())
+            stop();
+        waitForSearch();
+    }
+
+    /**
+     * Waits until the running search, if any, has finished.
+     */
+    private void waitForSearch() {
+        if (this.searching == null)
+            return;
+        try {
+            this.searching.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+        this.searching = null;
+        if (this.scheduledStop != null) {
+            this.scheduledStop.cancel(false);
+            this.scheduledStop = null;
+        }
+    }
+
+    /**
+     * Creates a search over the current table and thread count that reports every iteration.
+     * @return the search
+     */
+    private ParallelSearch newSearch() {
+        ParallelSearch result = new ParallelSearch(this.table, this.threads);
+        result.setListener(this::sendInfo);
+        return result;
+    }
+
+    /**
+     * Reports a completed iteration.
+     * @param result the iteration's result
+     */
+    private void sendInfo(SearchResult result) {
+        StringBuilder line = new StringBuilder("info depth ").append(result.getDepth());
+        if (result.isMateScore())
+            line.append(" score mate ").append(result.getMateInMoves());
+        else
+            line.append(" score cp ").append(result.getScore());
+        line.append(" nodes ").append(result.getNodes())
+                .append(" nps ").append(result.getNodesPerSecond())
+                .append(" time ").append(result.getTimeMillis())
+                .append(" hashfull ").append(this.table.hashfull())
+                .append(" pv");
+        for (int move : result.getPrincipalVariation())
+            line.append(' ').append(toUci(move));
+        send(line.toString());
+    }
+
+    /**
+     * Reports the best move of a finished search, with the expected reply to ponder on.
+     * @param result the search result
+     */
+    private void sendBestMove(SearchResult result) {
+        int[] line = result.getPrincipalVariation();
+        if (line.length == 0)
+            send("bestmove 0000"); // No legal move: mate or stalemate
+        else if (line.length == 1)
+            send("bestmove " + toUci(line[0]));
+        else
+            send("bestmove " + toUci(line[0]) + " ponder " + toUci(line[1]));
+    }
+
+    /**
+     * Writes a response line and flushes it at once.
+     * @param line the response
+     */
+    private void send(String line) {
+        synchronized (this.out) {
+            this.out.println(line);
+            this.out.flush();
+        }
+    }
+
+    /**
+     * Converts an encoded move into UCI notation.
+     * @param move the encoded move
+     * @return the move, such as "e2e4"
+     */
+    private static String toUci(int move) {
+        return (Position.fromSquare(Move.originOf(move)).toString()
+                + Position.fromSquare(Move.destinationOf(move))).toLowerCase();
+    }
+
+    /**
+     * Creates a daemon thread, so that the engine's threads never keep the program alive.
+     * @param runnable the thread's task
+     * @param name the thread name
+     * @return the thread
+     */
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
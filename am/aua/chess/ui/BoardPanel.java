@@ -0,0 +1,238 @@
+package am.aua.chess.ui;
+
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.Piece;
+import am.aua.chess.core.Position;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Draws a whole chessboard as a single component, as a lighter alternative to a grid of
+ * {@link BoardSquare} buttons, so that many boards can be shown side by side.
+ * The empty board is painted once into an image and reused; pieces come from a
+ * {@link SpriteCache}, which the boards on screen may share if they have the same size.
+ * Only the squares whose piece or highlight changed are repainted.
+ * All methods must be called on the event dispatch thread.
+ */
+public class BoardPanel extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Colors of the light squares, the dark squares and the highlighted squares. */
+    private static final Color LIGHT_COLOR = Color.WHITE;
+    private static final Color DARK_COLOR = new Color(15, 64, 2);
+    private static final Color HIGHLIGHT_COLOR = Color.RED;
+
+    /** Side length of a square at the preferred size, in pixels. */
+    private static final int PREFERRED_SQUARE_SIZE = 64;
+
+    /** The piece images. */
+    private final SpriteCache sprites;
+
+    /** The character of the piece on each square as shown, or null if the square is empty. */
+    private final String[][] pieces = new String[Chess.BOARD_RANKS][Chess.BOARD_FILES];
+
+    /** Whether each square is highlighted. */
+    private final boolean[][] highlighted = new boolean[Chess.BOARD_RANKS][Chess.BOARD_FILES];
+
+    /** The empty board at the current square size; null until first painted. */
+    private BufferedImage background;
+
+    /** Side length of a square, and the position of the board's top left corner, in pixels. */
+    private int squareSize = PREFERRED_SQUARE_SIZE;
+    private int left;
+    private int top;
+
+    /** Called with the position of every clicked square; may be null. */
+    private Consumer<Position> squareListener;
+
+    /**
+     * Constructs an empty board.
+     * @param sprites the piece images
+     */
+    public BoardPanel(SpriteCache sprites) {
+        this.sprites = sprites;
+        setOpaque(true);
+        setPreferredSize(new Dimension(Chess.BOARD_FILES * PREFERRED_SQUARE_SIZE,
+                Chess.BOARD_RANKS * PREFERRED_SQUARE_SIZE));
+
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                layoutBoard();
+            }
+        });
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                squarePressed(e.getX(), e.getY());
+            }
+        });
+        sprites.whenLoaded(this::repaint);
+    }
+
+    /**
+     * Sets the code to run when a square is clicked.
+     * @param squareListener receives the position of the clicked square
+     */
+    public void setSquareListener(Consumer<Position> squareListener) {
+        this.squareListener = squareListener;
+    }
+
+    /**
+     * Shows the pieces of a board, repainting only the squares that changed.
+     * @param board the pieces, indexed by rank and file as in Chess.getBoard()
+     */
+    public void setBoard(Piece[][] board) {
+        for (int rank = 0; rank < Chess.BOARD_RANKS; rank++) {
+            for (int file = 0; file < Chess.BOARD_FILES; file++) {
+                String piece = board[rank][file] == null ? null : board[rank][file].toString();
+                if (!Objects.equals(piece, this.pieces[rank][file])) {
+                    this.pieces[rank][file] = piece;
+                    repaintSquare(rank, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shows the piece on one square, repainting it only if it changed.
+     * @param position the square
+     * @param piece the piece now on the square, or null if it is empty
+     */
+    public void setPiece(Position position, Piece piece) {
+        String code = piece == null ? null : piece.toString();
+        if (!Objects.equals(code, this.pieces[position.getRank()][position.getFile()])) {
+            this.pieces[position.getRank()][position.getFile()] = code;
+            repaintSquare(position.getRank(), position.getFile());
+        }
+    }
+
+    /**
+     * Highlights exactly the given squares, repainting only the squares that changed.
+     * @param positions the squares to highlight; null or empty to clear all highlights
+     */
+    public void setHighlighted(Position[] positions) {
+        boolean[][] wanted = new boolean[Chess.BOARD_RANKS][Chess.BOARD_FILES];
+        if (positions != null) {
+            for (Position position : positions)
+                wanted[position.getRank()][position.getFile()] = true;
+        }
+
+        for (int rank = 0; rank < Chess.BOARD_RANKS; rank++) {
+            for (int file = 0; file < Chess.BOARD_FILES; file++) {
+                if (wanted[rank][file] != this.highlighted[rank][file]) {
+                    this.highlighted[rank][file] = wanted[rank][file];
+                    repaintSquare(rank, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints the squares that intersect the clip area.
+     * @param g the graphics context
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        if (this.background == null)
+            this.background = paintBackground();
+        g.drawImage(this.background, this.left, this.top, null);
+
+        // Only visit the squares inside the clip
+        int firstFile = Math.max(0, Math.floorDiv(clip.x - this.left, this.squareSize));
+        int lastFile = Math.min(Chess.BOARD_FILES - 1,
+                Math.floorDiv(clip.x + clip.width - 1 - this.left, this.squareSize));
+        int firstRank = Math.max(0, Math.floorDiv(clip.y - this.top, this.squareSize));
+        int lastRank = Math.min(Chess.BOARD_RANKS - 1,
+                Math.floorDiv(clip.y + clip.height - 1 - this.top, this.squareSize));
+
+        for (int rank = firstRank; rank <= lastRank; rank++) {
+            for (int file = firstFile; file <= lastFile; file++) {
+                int x = this.left + file * this.squareSize;
+                int y = this.top + rank * this.squareSize;
+
+                if (this.highlighted[rank][file]) {
+                    g.setColor(HIGHLIGHT_COLOR);
+                    g.fillRect(x, y, this.squareSize, this.squareSize);
+                }
+
+                Image sprite = this.pieces[rank][file] == null ? null : this.sprites.getSprite(this.pieces[rank][file]);
+                if (sprite != null) {
+                    // Center the sprite in its square
+                    g.drawImage(sprite, x + (this.squareSize - sprite.getWidth(null)) / 2,
+                            y + (this.squareSize - sprite.getHeight(null)) / 2, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fits the board into the component after a resize and repaints it all.
+     */
+    private void layoutBoard() {
+        this.squareSize = Math.max(1, Math.min(getWidth() / Chess.BOARD_FILES, getHeight() / Chess.BOARD_RANKS));
+        this.left = (getWidth() - Chess.BOARD_FILES * this.squareSize) / 2;
+        this.top = (getHeight() - Chess.BOARD_RANKS * this.squareSize) / 2;
+        this.background = null;
+        this.sprites.setSquareSize(this.squareSize);
+        repaint();
+    }
+
+    /**
+     * Paints the empty board at the current square size.
+     * @return the image of the board
+     */
+    private BufferedImage paintBackground() {
+        BufferedImage image = new BufferedImage(Chess.BOARD_FILES * this.squareSize,
+                Chess.BOARD_RANKS * this.squareSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int rank = 0; rank < Chess.BOARD_RANKS; rank++) {
+            for (int file = 0; file < Chess.BOARD_FILES; file++) {
+                graphics.setColor((rank + file) % 2 == 0 ? LIGHT_COLOR : DARK_COLOR);
+                graphics.fillRect(file * this.squareSize, rank * this.squareSize, this.squareSize, this.squareSize);
+            }
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    /**
+     * Schedules a repaint of one square.
+     * @param rank the rank of the square
+     * @param file the file of the square
+     */
+    private void repaintSquare(int rank, int file) {
+        repaint(new Rectangle(this.left + file * this.squareSize, this.top + rank * this.squareSize,
+                this.squareSize, this.squareSize));
+    }
+
+    /**
+     * Reports a click to the square listener, if it hit a square.
+     * @param x the horizontal coordinate of the click
+     * @param y the vertical coordinate of the click
+     */
+    private void squarePressed(int x, int y) {
+        if (this.squareListener == null || x < this.left || y < this.top)
+            return;
+
+        int file = (x - this.left) / this.squareSize;
+        int rank = (y - this.top) / this.squareSize;
+        if (file < Chess.BOARD_FILES && rank < Chess.BOARD_RANKS)
+            this.squareListener.accept(Position.generateFromRankAndFile(rank, file));
+    }
+}
@@ -26,16 +26,21 @@ public class BoardSquare extends JButton {
     /** The default color of the square (light or dark). */
     private Color color;
 
+    /** The piece images shared by all squares. */
+    private final SpriteCache sprites;
+
     /**
      * Constructs a new BoardSquare with specified color and coordinates.
      * @param isLightColor true if the square is light, false if dark
      * @param x the rank of the square
      * @param y the file of the square
+     * @param sprites the piece images
      */
-    public BoardSquare(boolean isLightColor, int x, int y){
+    public BoardSquare(boolean isLightColor, int x, int y, SpriteCache sprites){
         super();
         this.x = x;
         this.y = y;
+        this.sprites = sprites;
         this.color = isLightColor ? LIGHT_COLOR : DARK_COLOR;
         setHighlitht(false);  // Initialize with no highlight
     }
@@ -53,25 +58,11 @@ public class BoardSquare extends JButton {
 
     /**
      * Sets the piece icon on this square based on the character code.
+     * The icon comes from the sprite cache; if the images are still loading, the square stays empty.
      * @param piece the character representing the piece (e.g., 'P', 'k', 'Q', etc.)
      */
     public void setPiece(String piece){
-        ImageIcon imageIcon = switch(piece) {
-            case "Q" -> new ImageIcon("./gfx/QueenW.png");
-            case "q" -> new ImageIcon("./gfx/QueenB.png");
-            case "P" -> new ImageIcon("./gfx/PawnW.png");
-            case "p" -> new ImageIcon("./gfx/PawnB.png");
-            case "N" -> new ImageIcon("./gfx/KnightW.png");
-            case "n" -> new ImageIcon("./gfx/KnightB.png");
-            case "B" -> new ImageIcon("./gfx/BishopW.png");
-            case "b" -> new ImageIcon("./gfx/BishopB.png");
-            case "R", "S" -> new ImageIcon("./gfx/RookW.png");
-            case "r", "s" -> new ImageIcon("./gfx/RookB.png");
-            case "K", "L" -> new ImageIcon("./gfx/KingW.png");
-            case "k", "l" -> new ImageIcon("./gfx/KingB.png");
-            default -> null;
-        };
-        setIcon(imageIcon);
+        setIcon(this.sprites.getIcon(piece));
     }
 
     /**
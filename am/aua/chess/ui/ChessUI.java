@@ -4,53 +4,110 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 
 import am.aua.chess.core.*;
+import am.aua.chess.engine.Search;
+import am.aua.chess.engine.TranspositionTable;
 
 /**
  * The main GUI for the chess game.
- * Displays the board, handles user interactions, and manages the game logic.
+ * Displays the board and handles user interactions; the game logic runs on a
+ * GameController, off the event dispatch thread.
  */
 public class ChessUI extends JFrame {
 
-    /** The current game state. */
-    private Chess game;
+    /** Size of the computer's transposition table, in megabytes. */
+    private static final int COMPUTER_TABLE_MEGABYTES = 64;
 
-    /** 2D array of board square buttons. */
+    /** Runs the game logic in the background. */
+    private GameController controller;
+
+    /** The pieces, kept up to date with the changes reported by the controller. */
+    private Piece[][] board;
+
+    /** The piece images, scaled to the squares. */
+    private SpriteCache sprites;
+
+    /** 2D array of board square buttons; null when the board is a single BoardPanel. */
     private BoardSquare[][] boardSquares;
 
+    /** The board drawn as a single component; null when it is made of buttons. */
+    private BoardPanel boardPanel;
+
+    /** The highlighted squares; empty if none. */
+    private Position[] highlighted = new Position[0];
+
     /** Holds the origin of a selected move; null if no selection yet. */
     private Position preOrigin;
 
     /**
-     * Constructs the UI window and initializes the game and board layout.
+     * Constructs the UI window for a game between two humans.
      */
     public ChessUI() {
+        this(false);
+    }
+
+    /**
+     * Constructs the UI window with a board of buttons.
+     *
+     * @param computerOpponent true to let the computer play Black
+     */
+    public ChessUI(boolean computerOpponent) {
+        this(computerOpponent, false);
+    }
+
+    /**
+     * Constructs the UI window and initializes the game and board layout.
+     *
+     * @param computerOpponent true to let the computer play Black
+     * @param singleComponent true to draw the board as one BoardPanel instead of 64 buttons
+     */
+    public ChessUI(boolean computerOpponent, boolean singleComponent) {
         super("Chess game");
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setSize(750, 750);
 
+        // Start reading the piece images while the rest is set up
+        sprites = new SpriteCache();
+
         // Initialize the game logic
+        Chess game = null;
         try {
             game = new Chess();
         } catch (IllegalArrangementException e) {
             System.out.println(e.getMessage());
             System.exit(0);
         }
+        board = game.getBoard();
+        Search computer = computerOpponent ? new Search(new TranspositionTable(COMPUTER_TABLE_MEGABYTES)) : null;
+        controller = new GameController(game, computer, this::boardChanged,
+                status -> setTitle("Chess game - " + status));
+
+        if (singleComponent) {
+            // A single component paints the whole board
+            boardPanel = new BoardPanel(sprites);
+            boardPanel.setBoard(board);
+            boardPanel.setSquareListener(position -> boardClicked(new int[]{position.getRank(), position.getFile()}));
+            getContentPane().add(boardPanel, BorderLayout.CENTER);
+            setVisible(true);
+            return;
+        }
 
         // Create and configure the board panel
-        JPanel boardPanel = new JPanel(new GridLayout(Chess.BOARD_RANKS, Chess.BOARD_FILES));
+        JPanel gridPanel = new JPanel(new GridLayout(Chess.BOARD_RANKS, Chess.BOARD_FILES));
         boardSquares = new BoardSquare[Chess.BOARD_RANKS][Chess.BOARD_FILES];
 
         // Set up each square
         for (int row = 0; row < Chess.BOARD_RANKS; row++) {
             for (int col = 0; col < Chess.BOARD_FILES; col++) {
                 boolean isLightColor = (row + col) % 2 == 0;
-                boardSquares[row][col] = new BoardSquare(isLightColor, row, col);
-                boardPanel.add(boardSquares[row][col]);
+                boardSquares[row][col] = new BoardSquare(isLightColor, row, col, sprites);
+                gridPanel.add(boardSquares[row][col]);
 
                 // Place initial pieces
-                Piece piece = game.getPieceAt(Position.generateFromRankAndFile(row, col));
+                Piece piece = board[row][col];
                 if (piece != null) {
                     boardSquares[row][col].setPiece(piece.toString());
                 }
@@ -68,64 +125,109 @@ public class ChessUI extends JFrame {
             }
         }
 
+        // Rescale the pieces with the squares, and show them once they are loaded
+        gridPanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                sprites.setSquareSize(Math.min(gridPanel.getWidth() / Chess.BOARD_FILES,
+                        gridPanel.getHeight() / Chess.BOARD_RANKS));
+                showPieces();
+            }
+        });
+        sprites.whenLoaded(this::showPieces);
+
         // Add the board panel to the frame
-        getContentPane().add(boardPanel, BorderLayout.CENTER);
+        getContentPane().add(gridPanel, BorderLayout.CENTER);
         setVisible(true);
     }
 
     /**
      * Handles user interaction when a board square is clicked.
-     * Either selects a piece or attempts a move, then updates the board.
+     * Either selects a piece or attempts a move. The controller checks both in the
+     * background and answers later on the event dispatch thread.
      *
      * @param cordinates the coordinates of the clicked square
      */
     private void boardClicked(int[] cordinates) {
-        updatePieces(); // Always clear highlights first
+        clearHighlights(); // Always clear highlights first
 
         if (preOrigin == null) {
-            // No piece selected yet — try selecting a piece
-            preOrigin = Position.generateFromRankAndFile(cordinates[0], cordinates[1]);
-            Piece piece = game.getPieceAt(preOrigin);
-
-            // Only allow selection of the current player's piece
-            if (piece != null && piece.getPieceColor() == game.getTurn()) {
-                for (Position position : game.reachableFrom(preOrigin)) {
+            // No piece selected yet — ask where the clicked piece can go
+            Position origin = Position.generateFromRankAndFile(cordinates[0], cordinates[1]);
+            preOrigin = origin;
+            controller.requestDestinations(origin, destinations -> {
+                if (destinations == null) {
+                    preOrigin = null; // Invalid selection
+                    return;
+                }
+                highlighted = destinations;
+                if (boardPanel != null) {
+                    boardPanel.setHighlighted(destinations);
+                    return;
+                }
+                for (Position position : destinations) {
                     boardSquares[position.getRank()][position.getFile()].setHighlitht(true);
                 }
-            } else {
-                preOrigin = null; // Invalid selection
-            }
+            });
 
         } else {
-            // Piece already selected — try to perform the move
+            // Piece already selected — try to perform the move; the board is updated when it is made
             Position finalPosition = Position.generateFromRankAndFile(cordinates[0], cordinates[1]);
-            Move move = new Move(preOrigin, finalPosition);
+            controller.requestMove(new Move(preOrigin, finalPosition));
 
-            if (game.performMove(move)) {
-                updatePieces(); // Refresh board after valid move
+            preOrigin = null; // Reset selection
+        }
+    }
+
+    /**
+     * Receives the changes of a move from the controller and updates only the squares
+     * that changed.
+     *
+     * @param event the changes of the move
+     */
+    private void boardChanged(BoardChangeEvent event) {
+        event.applyTo(board);
+        for (Position position : event.getChangedPositions()) {
+            Piece piece = board[position.getRank()][position.getFile()];
+            if (boardPanel != null) {
+                boardPanel.setPiece(position, piece);
+            } else if (piece != null) {
+                boardSquares[position.getRank()][position.getFile()].setPiece(piece.toString());
+            } else {
+                boardSquares[position.getRank()][position.getFile()].setPiece(); // Clear icon
             }
+        }
+        clearHighlights();
+    }
 
-            preOrigin = null; // Reset selection
+    /**
+     * Removes the highlights from the highlighted squares.
+     */
+    private void clearHighlights() {
+        if (boardPanel != null) {
+            boardPanel.setHighlighted(null);
+        } else {
+            for (Position position : highlighted) {
+                boardSquares[position.getRank()][position.getFile()].setHighlitht(false);
+            }
         }
+        highlighted = new Position[0];
     }
 
     /**
-     * Updates all board squares: sets or removes piece icons and clears highlights.
+     * Sets or removes the piece icons of all board squares, keeping the highlights.
      */
-    private void updatePieces() {
+    private void showPieces() {
         for (int rows = 0; rows < Chess.BOARD_RANKS; rows++) {
             for (int columns = 0; columns < Chess.BOARD_FILES; columns++) {
                 int[] coordinates = boardSquares[rows][columns].getCordinates();
-                Position pos = Position.generateFromRankAndFile(coordinates[0], coordinates[1]);
-                Piece piece = this.game.getPieceAt(pos);
+                Piece piece = this.board[coordinates[0]][coordinates[1]];
 
                 if (piece != null) {
                     boardSquares[rows][columns].setPiece(piece.toString());
                 } else {
                     boardSquares[rows][columns].setPiece(); // Clear icon
                 }
-
-                boardSquares[rows][columns].setHighlitht(false); // Clear highlights
             }
         }
     }
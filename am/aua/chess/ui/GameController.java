@@ -0,0 +1,182 @@
+package am.aua.chess.ui;
+
+import am.aua.chess.core.BoardChangeEvent;
+import am.aua.chess.core.Chess;
+import am.aua.chess.core.Move;
+import am.aua.chess.core.Piece;
+import am.aua.chess.core.Position;
+import am.aua.chess.engine.Search;
+import am.aua.chess.engine.SearchLimits;
+import am.aua.chess.engine.SearchResult;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Runs the game logic of the GUI off the Swing event dispatch thread.
+ * The game is confined to one background thread, which answers legality queries and
+ * makes moves; the computer thinks on a second thread, on its own copy of the game,
+ * so the board stays responsive meanwhile. Every result is handed back to the event
+ * dispatch thread with SwingUtilities.invokeLater.
+ * Each user request gets a new generation number; when the user clicks again before
+ * an answer arrives, the old request is stale, so it is skipped if it has not started
+ * and its answer is dropped if it has.
+ */
+public class GameController {
+
+    /** Time the computer may think about each move, in milliseconds. */
+    private static final long COMPUTER_MOVE_MILLIS = 1000;
+
+    /** The game; only touched on the game thread. */
+    private final Chess game;
+
+    /** The computer opponent playing Black, or null if two humans play. */
+    private final Search computer;
+
+    /** The thread that owns the game, and the thread the computer thinks on. */
+    private final ExecutorService gameThread;
+    private final ExecutorService engineThread;
+
+    /** Called on the event dispatch thread with the changes of every move. */
+    private final Consumer<BoardChangeEvent> boardChanged;
+
+    /** Called on the event dispatch thread with a status line for the user. */
+    private final Consumer<String> statusChanged;
+
+    /** Generation of the latest user request; older requests are stale. */
+    private volatile int generation;
+
+    /**
+     * Constructs a controller.
+     * @param game the game, which must not be used elsewhere from now on
+     * @param computer the computer opponent playing Black, or null
+     * @param boardChanged receives the changes of every move
+     * @param statusChanged receives status lines, such as the computer's moves
+     */
+    public GameController(Chess game, Search computer, Consumer<BoardChangeEvent> boardChanged,
+                          Consumer<String> statusChanged) {
+        this.game = game;
+        this.computer = computer;
+        this.boardChanged = boardChanged;
+        this.statusChanged = statusChanged;
+        this.gameThread = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "game"));
+        this.engineThread = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "engine"));
+        game.addBoardChangeListener(event -> SwingUtilities.invokeLater(() -> this.boardChanged.accept(event)));
+    }
+
+    /**
+     * Looks up where a piece can move, for highlighting. Called on the event dispatch thread.
+     * @param origin the square of the piece
+     * @param result receives the reachable positions, or null if the square holds
+     *               no piece of the side to move or it is the computer's turn;
+     *               not called if the request goes stale
+     */
+    public void requestDestinations(Position origin, Consumer<Position[]> result) {
+        int request = ++this.generation;
+        this.gameThread.execute(() -> {
+            if (request != this.generation)
+                return; // The user has already clicked again
+
+            Piece piece = this.game.getPieceAt(origin);
+            Position[] destinations = !isComputerTurn() && piece != null
+                    && piece.getPieceColor() == this.game.getTurn() ? this.game.reachableFrom(origin) : null;
+            post(request, () -> result.accept(destinations));
+        });
+    }
+
+    /**
+     * Tries to play a move for the user. Called on the event dispatch thread.
+     * If the move is legal, its changes are reported and, when playing the computer,
+     * the computer starts thinking about its reply. Moves are never skipped, even when
+     * the user clicks again quickly; the request only makes pending destination queries stale.
+     * While the computer is to move, and so thinking, the move is ignored.
+     * @param move the move
+     */
+    public void requestMove(Move move) {
+        ++this.generation;
+        this.gameThread.execute(() -> {
+            if (isComputerTurn() || !this.game.performMove(move))
+                return;
+
+            if (this.game.isGameOver()) {
+                String status = result();
+                SwingUtilities.invokeLater(() -> this.statusChanged.accept(status));
+            } else if (isComputerTurn())
+                startComputerMove();
+        });
+    }
+
+    /**
+     * Lets the computer think about its move on a copy of the game, then plays it on
+     * the game thread. Runs on the game thread.
+     */
+    private void startComputerMove() {
+        Chess copy = this.game.clone();
+        long key = this.game.getKey();
+        SwingUtilities.invokeLater(() -> this.statusChanged.accept("Computer is thinking…"));
+
+        this.engineThread.execute(() -> {
+            SearchResult result = this.computer.search(copy, SearchLimits.time(COMPUTER_MOVE_MILLIS));
+            this.gameThread.execute(() -> {
+                // Drop the move if the game has moved on in the meantime
+                if (this.game.getKey() != key)
+                    return;
+
+                if (result.getBestMove() == Move.NONE) {
+                    SwingUtilities.invokeLater(() -> this.statusChanged.accept("Black has no legal moves"));
+                    return;
+                }
+                this.game.performMove(new Move(result.getBestMove()));
+                String status = "Computer played " + Move.toString(result.getBestMove()) + " (" + result + ")";
+                if (this.game.isGameOver())
+                    status += " - " + result();
+                String finalStatus = status;
+                SwingUtilities.invokeLater(() -> this.statusChanged.accept(finalStatus));
+            });
+        });
+    }
+
+    /**
+     * Checks whether the computer is to move, in which case the user may not move. Runs on the game thread.
+     * @return true if the computer plays and it is Black's turn
+     */
+    private boolean isComputerTurn() {
+        return this.computer != null && this.game.getTurn() == Chess.PieceColor.BLACK;
+    }
+
+    /**
+     * Describes how the game ended. Runs on the game thread, once the game is over.
+     * @return the result for the status line
+     */
+    private String result() {
+        if (!this.game.isKingUnderAttack(this.game.getTurn()))
+            return "Stalemate, the game is a draw";
+        return this.game.getTurn() == Chess.PieceColor.WHITE ? "Checkmate, Black wins" : "Checkmate, White wins";
+    }
+
+    /**
+     * Runs an answer on the event dispatch thread, unless its request has gone stale by then.
+     * @param request the generation of the request
+     * @param answer the code that delivers the answer
+     */
+    private void post(int request, Runnable answer) {
+        SwingUtilities.invokeLater(() -> {
+            if (request == this.generation)
+                answer.run();
+        });
+    }
+
+    /**
+     * Creates a daemon thread, so that the controller never keeps the program alive.
+     * @param runnable the thread's task
+     * @param name the thread name
+     * @return the thread
+     */
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
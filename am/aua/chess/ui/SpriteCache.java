@@ -0,0 +1,168 @@
+package am.aua.chess.ui;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the 12 piece images in memory, scaled to the size of a board square.
+ * The images are read from disk once, on a background thread, as soon as the cache
+ * is created. They are scaled on the event dispatch thread when first needed and again
+ * only when the square size changes, so showing a piece is just a lookup.
+ * Apart from the constructor, all methods must be called on the event dispatch thread.
+ */
+public class SpriteCache {
+
+    /** Folder holding the piece images. */
+    private static final String DIRECTORY = "./gfx/";
+
+    /** Image names of the piece types, and the letters of the white pieces in the same order. */
+    private static final String[] NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+    private static final String LETTERS = "PNBRQK";
+
+    /** Share of the square that a piece takes up in each direction. */
+    private static final double PIECE_FRACTION = 0.7;
+
+    /** The images as read from disk, indexed by color * 6 + type; a missing image is null. */
+    private final CompletableFuture<BufferedImage[]> originals;
+
+    /** The scaled images and their icons, at the same indices. */
+    private final BufferedImage[] sprites = new BufferedImage[2 * NAMES.length];
+    private final ImageIcon[] icons = new ImageIcon[2 * NAMES.length];
+
+    /** The wanted side length of a sprite, and the one the current sprites were scaled to. */
+    private int spriteSize = 64;
+    private int scaledSize;
+
+    /**
+     * Constructs the cache and starts reading the images in the background.
+     */
+    public SpriteCache() {
+        this.originals = CompletableFuture.supplyAsync(SpriteCache::readImages);
+    }
+
+    /**
+     * Runs an action on the event dispatch thread once the images have been read.
+     * @param action the action, typically one that shows the pieces again
+     */
+    public void whenLoaded(Runnable action) {
+        this.originals.thenRun(() -> SwingUtilities.invokeLater(action));
+    }
+
+    /**
+     * Sets the size of a board square. The sprites are rescaled on next use, if the size changed.
+     * @param squareSize the side length of a square, in pixels
+     */
+    public void setSquareSize(int squareSize) {
+        this.spriteSize = Math.max(1, (int) (squareSize * PIECE_FRACTION));
+    }
+
+    /**
+     * Returns the scaled image of a piece.
+     * @param piece the character representing the piece (e.g., "P", "k", "S", etc.)
+     * @return the image, or null if the piece is unknown or its image is not loaded (yet)
+     */
+    public Image getSprite(String piece) {
+        int index = indexOf(piece);
+        return index < 0 || !update() ? null : this.sprites[index];
+    }
+
+    /**
+     * Returns the scaled icon of a piece.
+     * @param piece the character representing the piece (e.g., "P", "k", "S", etc.)
+     * @return the icon, or null if the piece is unknown or its image is not loaded (yet)
+     */
+    public ImageIcon getIcon(String piece) {
+        int index = indexOf(piece);
+        return index < 0 || !update() ? null : this.icons[index];
+    }
+
+    /**
+     * Rescales the sprites if the square size has changed since they were last scaled.
+     * @return false if the images have not been read yet
+     */
+    private boolean update() {
+        BufferedImage[] images = this.originals.getNow(null);
+        if (images == null)
+            return false;
+
+        if (this.scaledSize != this.spriteSize) {
+            for (int i = 0; i < images.length; i++) {
+                this.sprites[i] = images[i] == null ? null : scale(images[i], this.spriteSize);
+                this.icons[i] = images[i] == null ? null : new ImageIcon(this.sprites[i]);
+            }
+            this.scaledSize = this.spriteSize;
+        }
+        return true;
+    }
+
+    /**
+     * Maps a piece character to its image index.
+     * The moved and unmoved variants of rooks and kings share an image.
+     * @param piece the character representing the piece
+     * @return the index, or -1 if the character is not a piece
+     */
+    private static int indexOf(String piece) {
+        if (piece.length() != 1)
+            return -1;
+
+        char letter = switch (piece.charAt(0)) {
+            case 'S' -> 'R';
+            case 's' -> 'r';
+            case 'L' -> 'K';
+            case 'l' -> 'k';
+            default -> piece.charAt(0);
+        };
+        int type = LETTERS.indexOf(Character.toUpperCase(letter));
+        if (type < 0)
+            return -1;
+        return Character.isUpperCase(letter) ? type : NAMES.length + type;
+    }
+
+    /**
+     * Reads all piece images from disk. Runs in the background.
+     * @return the images, white first; an image that cannot be read is null
+     */
+    private static BufferedImage[] readImages() {
+        BufferedImage[] images = new BufferedImage[2 * NAMES.length];
+        for (int type = 0; type < NAMES.length; type++) {
+            images[type] = readImage(NAMES[type] + "W.png");
+            images[NAMES.length + type] = readImage(NAMES[type] + "B.png");
+        }
+        return images;
+    }
+
+    /**
+     * Reads one image from the image folder.
+     * @param name the file name
+     * @return the image, or null if it cannot be read
+     */
+    private static BufferedImage readImage(String name) {
+        try {
+            return ImageIO.read(new File(DIRECTORY + name));
+        } catch (IOException e) {
+            System.out.println("Cannot read " + DIRECTORY + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Scales an image to a square of the given size.
+     * @param image the image
+     * @param size the side length, in pixels
+     * @return the scaled copy
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(image, 0, 0, size, size, null);
+        graphics.dispose();
+        return scaled;
+    }
+}